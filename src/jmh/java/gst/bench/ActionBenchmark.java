@@ -0,0 +1,128 @@
+package gst.bench;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.github.javaparser.ast.CompilationUnit;
+import com.github.javaparser.ast.Node;
+
+import gst.api.MappingLoader;
+import gst.api.Step;
+import gst.engine.TxContext;
+import gst.engine.actions.Action;
+import gst.engine.matcher.MatchContext;
+import gst.engine.matcher.NodeMatcher;
+import gst.engine.parser.ParserSession;
+
+/**
+ * Action.apply for each action of the default mapping, on every node its step
+ * matches in a sample of bucket files that have such nodes. Actions edit the
+ * tree, so every invocation gets freshly parsed units; parsing and matching
+ * happen in setup and are not measured.
+ *
+ * A bucket without any match for the step scores the empty loop, and says so
+ * on stderr at setup.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ActionBenchmark {
+    @Param({"SMALL", "MEDIUM", "LARGE"})
+    public BenchmarkCorpus.Size size;
+
+    // Actions used by the default mapping.
+    @Param({"changeType", "replaceWithMethodCall", "wrapArgument", "switchToReturnExpression",
+            "replaceWithTemplate", "removeNode", "forToForEach", "collapseLiteralConcat",
+            "addImport", "addAnnotation"})
+    public String action;
+
+    private ParserSession session;
+    private Step step;
+    private Action bound;
+    private List<Path> files;
+    private List<byte[]> sources;
+
+    private List<CompilationUnit> units;
+    private List<List<Node>> targets;
+    private TxContext ctx;
+
+    @Setup
+    public void setUp() throws IOException {
+        session = new ParserSession(BenchmarkCorpus.INPUT_ROOT);
+        step = BenchmarkCorpus.stepWithAction(MappingLoader.load(BenchmarkCorpus.MAPPING), action);
+        bound = step.boundActions.stream().filter(b -> b.name.equals(action)).findFirst().orElseThrow().action;
+
+        List<Path> matching = new ArrayList<>();
+        for (Path file : BenchmarkCorpus.files(size)) {
+            CompilationUnit cu = session.parse(file, Files.readAllBytes(file));
+            if (!matched(cu).isEmpty()) {
+                matching.add(file);
+            }
+        }
+        if (matching.isEmpty()) {
+            System.err.println("No " + size + " file has a match for the step running " + action);
+        }
+        files = BenchmarkCorpus.spread(matching, BenchmarkCorpus.FILES_PER_BUCKET);
+        sources = new ArrayList<>();
+        for (Path file : files) {
+            sources.add(Files.readAllBytes(file));
+        }
+    }
+
+    @Setup(Level.Invocation)
+    public void parseFresh() {
+        ctx = new TxContext();
+        units = new ArrayList<>();
+        targets = new ArrayList<>();
+        for (int i = 0; i < files.size(); i++) {
+            CompilationUnit cu = session.parse(files.get(i), sources.get(i));
+            units.add(cu);
+            targets.add(matched(cu));
+            ctx.beginChange(files.get(i), cu);
+        }
+    }
+
+    @Benchmark
+    public int apply() {
+        int applied = 0;
+        for (int i = 0; i < units.size(); i++) {
+            CompilationUnit cu = units.get(i);
+            for (Node node : targets.get(i)) {
+                bound.apply(node, cu, ctx, session);
+                applied++;
+            }
+        }
+        return applied;
+    }
+
+    private List<Node> matched(CompilationUnit cu) {
+        MatchContext matchCtx = new MatchContext(session);
+        List<Node> nodes = new ArrayList<>();
+        for (Node node : NodeMatcher.findCandidates(cu, step.match.nodeType)) {
+            if (step.compiledMatch.matches(node, matchCtx)) {
+                nodes.add(node);
+            }
+        }
+        return nodes;
+    }
+}
@@ -0,0 +1,131 @@
+package gst.bench;
+
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import com.github.javaparser.ast.CompilationUnit;
+
+import gst.api.Match;
+import gst.api.Recipe;
+import gst.api.Step;
+import gst.engine.parser.ParserSession;
+
+/**
+ * Inputs shared by the benchmarks: the bundled Guava sources, split into size
+ * buckets, and the recipes of the default mapping. Paths are relative to the
+ * project root, where `mvn -Pjmh test-compile exec:exec` runs; -Dgst.bench.input,
+ * -Dgst.bench.mapping and -Dgst.bench.files override them.
+ */
+final class BenchmarkCorpus {
+    static final Path INPUT_ROOT = Paths.get(System.getProperty("gst.bench.input", "src/main/resources/input/guava/src"));
+    static final Path MAPPING = Paths.get(System.getProperty("gst.bench.mapping", "src/main/resources/mappingsV3.json"));
+    // Files per benchmark invocation, spread evenly over the bucket.
+    static final int FILES_PER_BUCKET = Integer.getInteger("gst.bench.files", 16);
+
+    // Source file size buckets, by bytes on disk.
+    enum Size {
+        SMALL(0, 4 * 1024),
+        MEDIUM(4 * 1024, 32 * 1024),
+        LARGE(32 * 1024, Long.MAX_VALUE);
+
+        final long min;
+        final long max;
+
+        Size(long min, long max) {
+            this.min = min;
+            this.max = max;
+        }
+    }
+
+    private BenchmarkCorpus() {
+    }
+
+    // Every .java file of the bucket, in path order.
+    static List<Path> files(Size size) throws IOException {
+        List<Path> files = new ArrayList<>();
+        try (Stream<Path> walk = Files.walk(INPUT_ROOT)) {
+            for (Path p : walk.filter(p -> p.toString().endsWith(".java")).sorted().toList()) {
+                long bytes = Files.size(p);
+                if (bytes >= size.min && bytes < size.max) {
+                    files.add(p);
+                }
+            }
+        }
+        if (files.isEmpty()) {
+            throw new IllegalStateException("No " + size + " sources under " + INPUT_ROOT.toAbsolutePath());
+        }
+        return files;
+    }
+
+    // FILES_PER_BUCKET files of the bucket, the same ones on every run.
+    static List<Path> sample(Size size) throws IOException {
+        return spread(files(size), FILES_PER_BUCKET);
+    }
+
+    static <T> List<T> spread(List<T> all, int count) {
+        if (all.size() <= count) {
+            return all;
+        }
+        List<T> picked = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            picked.add(all.get((int) ((long) i * all.size() / count)));
+        }
+        return picked;
+    }
+
+    static List<CompilationUnit> parse(ParserSession session, List<Path> files) throws IOException {
+        List<CompilationUnit> units = new ArrayList<>(files.size());
+        for (Path file : files) {
+            units.add(session.parse(file, Files.readAllBytes(file)));
+        }
+        return units;
+    }
+
+    /**
+     * A match with nothing but the node type and the one criterion, taken from
+     * the first step of the mapping that sets it, so each criterion is timed on
+     * its own rather than behind the cheaper checks of its step.
+     */
+    static Match criterion(List<Recipe> recipes, String field) {
+        Field f;
+        try {
+            f = Match.class.getField(field);
+        } catch (NoSuchFieldException ex) {
+            throw new IllegalArgumentException("Not a match criterion: " + field, ex);
+        }
+        for (Recipe recipe : recipes) {
+            for (Step step : recipe.steps) {
+                try {
+                    Object value = f.get(step.match);
+                    if (value != null) {
+                        Match m = new Match();
+                        m.nodeType = step.match.nodeType;
+                        f.set(m, value);
+                        return m;
+                    }
+                } catch (IllegalAccessException ex) {
+                    throw new IllegalStateException(ex);
+                }
+            }
+        }
+        throw new IllegalArgumentException("No step in " + MAPPING + " uses " + field);
+    }
+
+    // The first step running the named action.
+    static Step stepWithAction(List<Recipe> recipes, String action) {
+        for (Recipe recipe : recipes) {
+            for (Step step : recipe.steps) {
+                if (step.boundActions.stream().anyMatch(b -> b.name.equals(action))) {
+                    return step;
+                }
+            }
+        }
+        throw new IllegalArgumentException("No step in " + MAPPING + " runs " + action);
+    }
+}
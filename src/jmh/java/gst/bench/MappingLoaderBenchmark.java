@@ -0,0 +1,64 @@
+package gst.bench;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import gst.api.MappingLoader;
+import gst.api.Recipe;
+import gst.api.RecipeBundle;
+
+/**
+ * MappingLoader.load of the default mapping, from JSON and from a bundle
+ * compiled from it at setup: parsing, regex compilation and action creation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MappingLoaderBenchmark {
+    @Param({"json", "bundle"})
+    public String format;
+
+    private Path mapping;
+    private Path bundle;
+
+    @Setup
+    public void setUp() throws IOException {
+        mapping = BenchmarkCorpus.MAPPING;
+        if (format.equals("bundle")) {
+            bundle = Files.createTempFile("gst-bench", RecipeBundle.EXTENSION);
+            RecipeBundle.compile(BenchmarkCorpus.MAPPING, bundle);
+            mapping = bundle;
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        if (bundle != null) {
+            Files.deleteIfExists(bundle);
+        }
+    }
+
+    @Benchmark
+    public List<Recipe> load() throws IOException {
+        return MappingLoader.load(mapping);
+    }
+}
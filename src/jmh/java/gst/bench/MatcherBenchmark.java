@@ -0,0 +1,104 @@
+package gst.bench;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.github.javaparser.ast.CompilationUnit;
+import com.github.javaparser.ast.Node;
+
+import gst.api.MappingLoader;
+import gst.api.Match;
+import gst.engine.matcher.CompiledMatch;
+import gst.engine.matcher.MatchContext;
+import gst.engine.matcher.NodeMatcher;
+import gst.engine.parser.ParserSession;
+
+/**
+ * Candidate search and matching over one size bucket, one Match criterion at a
+ * time. Each invocation covers the whole sample, so scores are per sample of
+ * BenchmarkCorpus.FILES_PER_BUCKET files.
+ *
+ * The sample is parsed afresh before every invocation, unmeasured, as each file
+ * of a run is matched on fresh nodes: what the symbol solver memoizes on the
+ * nodes does not carry over. The type solver stays warm, as it does across the
+ * files of a run.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MatcherBenchmark {
+    @Param({"SMALL", "MEDIUM", "LARGE"})
+    public BenchmarkCorpus.Size size;
+
+    // Match fields used by the default mapping.
+    @Param({"fqn", "type", "methodName", "fqnScope", "matchExpr", "operator", "literalPattern",
+            "initVarPattern", "conditionPattern", "updatePattern", "accessPattern", "literalOnly",
+            "requireInitializer", "requireNoTypeArgs", "argumentType", "expectedParamType",
+            "typePattern", "namePattern", "scopePattern", "hasModifier", "forbidsImport"})
+    public String criterion;
+
+    private ParserSession session;
+    private List<Path> files;
+    private List<CompilationUnit> units;
+    private Match match;
+    private CompiledMatch compiled;
+    private List<List<Node>> candidates;
+
+    @Setup
+    public void setUp() throws IOException {
+        session = new ParserSession(BenchmarkCorpus.INPUT_ROOT);
+        files = BenchmarkCorpus.sample(size);
+        match = BenchmarkCorpus.criterion(MappingLoader.load(BenchmarkCorpus.MAPPING), criterion);
+        compiled = CompiledMatch.compile(match);
+    }
+
+    @Setup(Level.Invocation)
+    public void parseFresh() throws IOException {
+        units = BenchmarkCorpus.parse(session, files);
+        candidates = new ArrayList<>();
+        for (CompilationUnit cu : units) {
+            candidates.add(NodeMatcher.findCandidates(cu, match.nodeType));
+        }
+    }
+
+    @Benchmark
+    public void findCandidates(Blackhole bh) {
+        for (CompilationUnit cu : units) {
+            bh.consume(NodeMatcher.findCandidates(cu, match.nodeType));
+        }
+    }
+
+    @Benchmark
+    public int matches() {
+        int hits = 0;
+        for (List<Node> nodes : candidates) {
+            MatchContext ctx = new MatchContext(session);
+            for (Node node : nodes) {
+                if (compiled.matches(node, ctx)) {
+                    hits++;
+                }
+            }
+        }
+        return hits;
+    }
+}
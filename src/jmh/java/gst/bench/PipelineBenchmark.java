@@ -0,0 +1,84 @@
+package gst.bench;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import gst.engine.Pipeline;
+import gst.engine.PipelineOptions;
+import gst.engine.event.Level;
+
+/**
+ * Pipeline.run end to end (load, parse, match, apply, validate, write) over a
+ * copy of one bucket's sample, with default options and logging off. Scores are
+ * per sample; divide by the sample size for time per file.
+ *
+ * The copy is the input root, so only the sampled sources and the JDK are
+ * visible to the symbol solver, as they are to the pipeline on that root.
+ * The run summary is discarded.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class PipelineBenchmark {
+    @Param({"SMALL", "MEDIUM", "LARGE"})
+    public BenchmarkCorpus.Size size;
+
+    private Path work;
+    private Path inputRoot;
+    private Path outputRoot;
+    private PipelineOptions options;
+    private PrintStream stdout;
+
+    @Setup
+    public void setUp() throws IOException {
+        work = Files.createTempDirectory("gst-bench");
+        inputRoot = work.resolve("input");
+        outputRoot = work.resolve("output");
+        for (Path file : BenchmarkCorpus.sample(size)) {
+            Path copy = inputRoot.resolve(BenchmarkCorpus.INPUT_ROOT.relativize(file).toString());
+            Files.createDirectories(copy.getParent());
+            Files.copy(file, copy);
+        }
+        options = new PipelineOptions();
+        options.logLevel = Level.OFF;
+        stdout = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        System.setOut(stdout);
+        try (Stream<Path> files = Files.walk(work)) {
+            for (Path p : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(p);
+            }
+        }
+    }
+
+    @Benchmark
+    public void run() throws IOException {
+        Pipeline.run(BenchmarkCorpus.MAPPING, inputRoot, outputRoot, options);
+    }
+}
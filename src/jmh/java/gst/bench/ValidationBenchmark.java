@@ -0,0 +1,82 @@
+package gst.bench;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.github.javaparser.ast.CompilationUnit;
+
+import gst.engine.TxContext;
+import gst.engine.parser.ParserSession;
+import gst.engine.validator.OverrideRule;
+import gst.engine.validator.SwitchExpressionCompletenessRule;
+import gst.engine.validator.TypeCompatibilityRule;
+import gst.engine.validator.ValidationRule;
+
+/**
+ * Each validation rule over whole units of a size bucket, the worst case of
+ * the scoped validation the pipeline runs after a recipe. Rules do not modify
+ * the tree, so the units are parsed once; per-node resolution results are
+ * dropped before every invocation, as in MatcherBenchmark.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ValidationBenchmark {
+    @Param({"SMALL", "MEDIUM", "LARGE"})
+    public BenchmarkCorpus.Size size;
+
+    @Param({"TypeCompatibilityRule", "OverrideRule", "SwitchExpressionCompletenessRule"})
+    public String rule;
+
+    private ParserSession session;
+    private List<Path> files;
+    private List<CompilationUnit> units;
+    private ValidationRule validationRule;
+    private TxContext ctx;
+
+    @Setup
+    public void setUp() throws IOException {
+        session = new ParserSession(BenchmarkCorpus.INPUT_ROOT);
+        files = BenchmarkCorpus.sample(size);
+        validationRule = switch (rule) {
+            case "TypeCompatibilityRule"            -> new TypeCompatibilityRule();
+            case "OverrideRule"                     -> new OverrideRule();
+            case "SwitchExpressionCompletenessRule" -> new SwitchExpressionCompletenessRule();
+            default -> throw new IllegalArgumentException("Unknown rule: " + rule);
+        };
+    }
+
+    // Fresh units drop what the symbol solver memoizes on nodes, and a fresh context empties
+    // the override index, either of which otherwise makes lookups after the first iteration hits.
+    @Setup(Level.Invocation)
+    public void reset() throws IOException {
+        units = BenchmarkCorpus.parse(session, files);
+        ctx = new TxContext();
+    }
+
+    @Benchmark
+    public void check(Blackhole bh) {
+        for (CompilationUnit cu : units) {
+            bh.consume(validationRule.apply(cu, ctx, session.getSymbolSolver()));
+        }
+    }
+}
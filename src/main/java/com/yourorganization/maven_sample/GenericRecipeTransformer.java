@@ -14,8 +14,10 @@ import java.util.stream.Stream;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.javaparser.JavaParser;
+import com.github.javaparser.ParseProblemException;
+import com.github.javaparser.ParseResult;
 import com.github.javaparser.ParserConfiguration;
-import com.github.javaparser.StaticJavaParser;
 import com.github.javaparser.ast.CompilationUnit;
 import com.github.javaparser.ast.ImportDeclaration;
 import com.github.javaparser.ast.Node;
@@ -93,7 +95,7 @@ public class GenericRecipeTransformer {
         );
         JavaSymbolSolver sym = new JavaSymbolSolver(solver);
         ParserConfiguration cfg = new ParserConfiguration().setSymbolResolver(sym);
-        StaticJavaParser.setConfiguration(cfg);
+        JavaParser parser = new JavaParser(cfg);
 
         // walking every .java in guava/src
         try(Stream<Path> stream = Files.walk(inputRoot)) {
@@ -106,7 +108,9 @@ public class GenericRecipeTransformer {
                 // parse
                 CompilationUnit cu;
                 try {
-                    cu = StaticJavaParser.parse(javaFile);
+                    ParseResult<CompilationUnit> parsed = parser.parse(javaFile);
+                    if(!parsed.isSuccessful()) throw new ParseProblemException(parsed.getProblems());
+                    cu = parsed.getResult().orElseThrow();
                 } catch(IOException e) {
                     System.err.println("  parse error: " + e.getMessage());
                     continue;
@@ -149,7 +153,7 @@ public class GenericRecipeTransformer {
                         for(Node n: candidates) {
                             if(matches(n, m, solver)) {
                                 // apply actions
-                                applyActions(n, step.actions, cu, solver);
+                                applyActions(n, step.actions, cu, parser);
                                 // cu.getImports().removeIf(id ->
                                 //     cu.findAll(NameExpr.class)
                                 //     .stream()
@@ -325,7 +329,7 @@ public class GenericRecipeTransformer {
             Node node,
             List<Map<String,Map<String,Object>>> actions,
             CompilationUnit cu,
-            CombinedTypeSolver solver
+            JavaParser parser
     ) {
         for(var actionMap: actions) {
             for(var e: actionMap.entrySet()) {
@@ -349,11 +353,11 @@ public class GenericRecipeTransformer {
                     case "changeType" -> {
                         String newType = (String)p.get("newType");
                         if(node instanceof VariableDeclarationExpr vde) {
-                            vde.getVariables().forEach(v->v.setType(StaticJavaParser.parseType(newType)));
+                            vde.getVariables().forEach(v->v.setType(parser.parseType(newType).getResult().orElseThrow()));
                         } else if(node instanceof ObjectCreationExpr oce2) {
                             oce2.setType(newType);
                         } else if (node instanceof Parameter prm) {
-                            prm.setType(StaticJavaParser.parseType(newType));
+                            prm.setType(parser.parseType(newType).getResult().orElseThrow());
                         }
                     }
                     case "renameMethod" -> {
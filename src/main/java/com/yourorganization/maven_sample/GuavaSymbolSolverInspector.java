@@ -9,7 +9,10 @@ import java.util.List;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
-import com.github.javaparser.StaticJavaParser;
+import com.github.javaparser.JavaParser;
+import com.github.javaparser.ParseProblemException;
+import com.github.javaparser.ParseResult;
+import com.github.javaparser.ParserConfiguration;
 import com.github.javaparser.ast.CompilationUnit;
 import com.github.javaparser.ast.Node;
 import com.github.javaparser.ast.body.VariableDeclarator;
@@ -36,7 +39,7 @@ public class GuavaSymbolSolverInspector {
             new JavaParserTypeSolver(guavaSrc)
         );
         JavaSymbolSolver symbolSolver = new JavaSymbolSolver(solver);
-        StaticJavaParser.getParserConfiguration().setSymbolResolver(symbolSolver);
+        JavaParser parser = new JavaParser(new ParserConfiguration().setSymbolResolver(symbolSolver));
 
         Path symbolOut = Paths.get("output", "SymbolSolver", "symbol_log.txt");
         Path astOut = Paths.get("output", "SymbolSolver", "ast_tree.txt");
@@ -55,7 +58,9 @@ public class GuavaSymbolSolverInspector {
 
                     CompilationUnit cu;
                     try {
-                        cu = StaticJavaParser.parse(file);
+                        ParseResult<CompilationUnit> parsed = parser.parse(file);
+                        if (!parsed.isSuccessful()) throw new ParseProblemException(parsed.getProblems());
+                        cu = parsed.getResult().orElseThrow();
                     } catch (Exception e) {
                         symbolWriter.write("[ParseError] " + e.getMessage() + "\n");
                         continue;
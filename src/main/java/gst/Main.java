@@ -2,13 +2,34 @@ package gst;
 
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.ArrayList;
 import java.util.List;
 
 import gst.api.MappingLoader;
 import gst.api.Recipe;
+import gst.api.RecipeBundle;
+import gst.engine.event.Events;
+import gst.engine.resolve.TypeIndex;
 
 public class Main {
+    // With "compile <mapping.json> [bundle]" writes a recipe bundle (default: next to the JSON, .gstb);
+    // with "index <index-file> <jar>..." builds the type index a run with -Dgst.classpath would use.
     public static void main(String[] args) throws Exception {
+        if (args.length >= 3 && args[0].equals("index")) {
+            List<Path> jars = new ArrayList<>();
+            for (int i = 2; i < args.length; i++) {
+                jars.add(Paths.get(args[i]));
+            }
+            TypeIndex.build(jars, Paths.get(args[1]), Events.CONSOLE);
+            return;
+        }
+        if (args.length >= 2 && args[0].equals("compile")) {
+            Path json = Paths.get(args[1]);
+            Path bundle = args.length > 2 ? Paths.get(args[2])
+                    : json.resolveSibling(json.getFileName().toString().replaceFirst("\\.json$", "") + RecipeBundle.EXTENSION);
+            RecipeBundle.compile(json, bundle);
+            return;
+        }
         Path mappingFile = Paths.get("src", "main", "resources", "mappingsV3.json");
         List<Recipe> recipes = MappingLoader.load(mappingFile);
         System.out.println("Loaded " + recipes.size() + " recipes:");
@@ -6,11 +6,31 @@ import java.util.List;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 
+import gst.engine.actions.ActionFactory;
+import gst.engine.matcher.CompiledMatch;
+
 public class MappingLoader {
-     // Loads the JSON at mappingsV3.json into a List<Recipe>.
-    public static List<Recipe> load(Path jsonFile) throws IOException {
+     // Loads the JSON at mappingsV3.json, or a bundle made from it by RecipeBundle.compile, into a List<Recipe>.
+    public static List<Recipe> load(Path mappingFile) throws IOException {
+        if (RecipeBundle.isBundle(mappingFile)) {
+            List<Recipe> recipes = RecipeBundle.read(mappingFile);
+            compile(recipes);
+            return recipes;
+        }
         ObjectMapper mapper = new ObjectMapper();
-        RecipeContainer container = mapper.readValue(jsonFile.toFile(),RecipeContainer.class);
+        RecipeContainer container = mapper.readValue(mappingFile.toFile(),RecipeContainer.class);
+        compile(container.recipes);
         return container.recipes;
     }
+
+     // Compiles every step's Match once (regexes included) and creates its actions, so bad
+     // patterns and unknown actions fail at load time.
+    public static void compile(List<Recipe> recipes) {
+        for (Recipe recipe : recipes) {
+            for (Step step : recipe.steps) {
+                step.compiledMatch = CompiledMatch.compile(step.match);
+                step.boundActions = ActionFactory.bind(step.actions);
+            }
+        }
+    }
 }
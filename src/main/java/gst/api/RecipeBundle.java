@@ -0,0 +1,313 @@
+package gst.api;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import gst.engine.event.Events;
+import gst.engine.event.Level;
+import gst.engine.matcher.NodeMatcher;
+
+/**
+ * Binary form of a recipe mapping (.gstb), produced once by {@link #compile}
+ * and read with a single memory-mapped pass instead of Jackson, for short
+ * runs where loading the mapping is a noticeable part of startup.
+ *
+ * Compiling goes through MappingLoader, so regexes and actions are checked as
+ * on any load, and additionally rejects unknown node types, which the JSON
+ * loader accepts as matching nothing. Every distinct string is stored once in
+ * a table and shared by all references to it after loading.
+ *
+ * Layout (big-endian): magic, version, string table (count, then length-prefixed
+ * UTF-8), then the recipes with strings as table indices (-1 for null) and
+ * free-form values (match fields, action parameters) as tagged values.
+ */
+public class RecipeBundle {
+    public static final String EXTENSION = ".gstb";
+
+    private static final int MAGIC = 0x47535442; // "GSTB"
+    private static final int VERSION = 1;
+
+    private static final byte NULL = 0;
+    private static final byte STRING = 1;
+    private static final byte INT = 2;
+    private static final byte LONG = 3;
+    private static final byte DOUBLE = 4;
+    private static final byte TRUE = 5;
+    private static final byte FALSE = 6;
+    private static final byte LIST = 7;
+    private static final byte MAP = 8;
+
+    // Whether file starts with the bundle magic, whatever its name.
+    public static boolean isBundle(Path file) throws IOException {
+        try (InputStream in = Files.newInputStream(file)) {
+            byte[] head = in.readNBytes(4);
+            return head.length == 4 && ByteBuffer.wrap(head).getInt() == MAGIC;
+        }
+    }
+
+    // Loads and validates a JSON mapping, then writes it to bundle atomically.
+    public static void compile(Path jsonFile, Path bundle) throws IOException {
+        List<Recipe> recipes = MappingLoader.load(jsonFile);
+        validate(recipes);
+        Writer w = new Writer();
+        byte[] body = w.recipes(recipes);
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(body.length + 1024);
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeInt(w.strings.size());
+        for (String s : w.strings.keySet()) {
+            byte[] utf8 = s.getBytes(StandardCharsets.UTF_8);
+            out.writeInt(utf8.length);
+            out.write(utf8);
+        }
+        out.write(body);
+        out.flush();
+
+        Path parent = bundle.toAbsolutePath().getParent();
+        Files.createDirectories(parent);
+        Path tmp = Files.createTempFile(parent, bundle.getFileName().toString(), ".tmp");
+        try {
+            Files.write(tmp, bytes.toByteArray());
+            Files.move(tmp, bundle, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+        Events.CONSOLE.emit(Level.INFO, "BUNDLE", "Compiled {} recipes -> {}", recipes.size(), bundle);
+    }
+
+    // Reads a bundle; matches still need MappingLoader.compile, which load() in MappingLoader does.
+    public static List<Recipe> read(Path bundle) throws IOException {
+        ByteBuffer buf;
+        try (FileChannel ch = FileChannel.open(bundle, StandardOpenOption.READ)) {
+            buf = ch.map(FileChannel.MapMode.READ_ONLY, 0, ch.size());
+        }
+        if (buf.remaining() < 8 || buf.getInt() != MAGIC) {
+            throw new IOException("Not a recipe bundle: " + bundle);
+        }
+        int version = buf.getInt();
+        if (version != VERSION) {
+            throw new IOException("Unsupported recipe bundle version " + version + ": " + bundle
+                    + " (recompile it from the JSON mapping)");
+        }
+        try {
+            return new Reader(buf).recipes();
+        } catch (RuntimeException ex) {
+            throw new IOException("Corrupt recipe bundle: " + bundle, ex);
+        }
+    }
+
+    private static void validate(List<Recipe> recipes) {
+        if (recipes == null) {
+            throw new IllegalArgumentException("Mapping has no recipes");
+        }
+        for (Recipe recipe : recipes) {
+            if (recipe.name == null || recipe.steps == null) {
+                throw new IllegalArgumentException("Recipe without name or steps: " + recipe.name);
+            }
+            for (Step step : recipe.steps) {
+                if (step.match == null || NodeMatcher.nodeClass(step.match.nodeType) == null) {
+                    throw new IllegalArgumentException("Unknown nodeType in recipe " + recipe.name + ": "
+                            + (step.match == null ? null : step.match.nodeType));
+                }
+            }
+        }
+    }
+
+    private static final class Writer {
+        final Map<String, Integer> strings = new LinkedHashMap<>();
+        private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        private final DataOutputStream out = new DataOutputStream(bytes);
+
+        byte[] recipes(List<Recipe> recipes) throws IOException {
+            out.writeInt(recipes.size());
+            for (Recipe recipe : recipes) {
+                string(recipe.name);
+                string(recipe.description);
+                out.writeBoolean(recipe.rollbackOnError);
+                out.writeBoolean(recipe.imports != null);
+                if (recipe.imports != null) {
+                    value(recipe.imports.add);
+                    value(recipe.imports.remove);
+                }
+                out.writeInt(recipe.steps.size());
+                for (Step step : recipe.steps) {
+                    match(step.match);
+                    value(step.actions);
+                }
+            }
+            out.flush();
+            return bytes.toByteArray();
+        }
+
+        // Only the fields that are set, by name, so Match can gain fields without a new version.
+        private void match(Match m) throws IOException {
+            List<Field> set = new ArrayList<>();
+            for (Field f : matchFields()) {
+                if (get(f, m) != null) set.add(f);
+            }
+            out.writeInt(set.size());
+            for (Field f : set) {
+                string(f.getName());
+                value(get(f, m));
+            }
+        }
+
+        private void value(Object v) throws IOException {
+            if (v == null) {
+                out.writeByte(NULL);
+            } else if (v instanceof String s) {
+                out.writeByte(STRING);
+                string(s);
+            } else if (v instanceof Integer i) {
+                out.writeByte(INT);
+                out.writeInt(i);
+            } else if (v instanceof Long l) {
+                out.writeByte(LONG);
+                out.writeLong(l);
+            } else if (v instanceof Double d) {
+                out.writeByte(DOUBLE);
+                out.writeDouble(d);
+            } else if (v instanceof Boolean b) {
+                out.writeByte(b ? TRUE : FALSE);
+            } else if (v instanceof List<?> list) {
+                out.writeByte(LIST);
+                out.writeInt(list.size());
+                for (Object e : list) value(e);
+            } else if (v instanceof Map<?, ?> map) {
+                out.writeByte(MAP);
+                out.writeInt(map.size());
+                for (Map.Entry<?, ?> e : map.entrySet()) {
+                    string((String) e.getKey());
+                    value(e.getValue());
+                }
+            } else {
+                throw new IllegalArgumentException("Cannot store " + v.getClass().getSimpleName() + " in a bundle: " + v);
+            }
+        }
+
+        private void string(String s) throws IOException {
+            out.writeInt(s == null ? -1 : strings.computeIfAbsent(s, k -> strings.size()));
+        }
+    }
+
+    private static final class Reader {
+        private final ByteBuffer buf;
+        private final String[] strings;
+
+        Reader(ByteBuffer buf) {
+            this.buf = buf;
+            this.strings = new String[buf.getInt()];
+            for (int i = 0; i < strings.length; i++) {
+                byte[] utf8 = new byte[buf.getInt()];
+                buf.get(utf8);
+                strings[i] = new String(utf8, StandardCharsets.UTF_8);
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        List<Recipe> recipes() {
+            int count = buf.getInt();
+            List<Recipe> recipes = new ArrayList<>(count);
+            for (int r = 0; r < count; r++) {
+                Recipe recipe = new Recipe();
+                recipe.name = string();
+                recipe.description = string();
+                recipe.rollbackOnError = buf.get() != 0;
+                if (buf.get() != 0) {
+                    recipe.imports = new ImportMods();
+                    recipe.imports.add = (List<String>) value();
+                    recipe.imports.remove = (List<String>) value();
+                }
+                int steps = buf.getInt();
+                recipe.steps = new ArrayList<>(steps);
+                for (int s = 0; s < steps; s++) {
+                    Step step = new Step();
+                    step.match = match();
+                    step.actions = (List<Map<String, Map<String, Object>>>) value();
+                    recipe.steps.add(step);
+                }
+                recipes.add(recipe);
+            }
+            return recipes;
+        }
+
+        private Match match() {
+            Match m = new Match();
+            int fields = buf.getInt();
+            for (int i = 0; i < fields; i++) {
+                String name = string();
+                Object v = value();
+                try {
+                    Match.class.getField(name).set(m, v);
+                } catch (NoSuchFieldException | IllegalAccessException ex) {
+                    throw new IllegalStateException("Unknown match field in bundle: " + name, ex);
+                }
+            }
+            return m;
+        }
+
+        private Object value() {
+            byte tag = buf.get();
+            return switch (tag) {
+                case NULL   -> null;
+                case STRING -> string();
+                case INT    -> buf.getInt();
+                case LONG   -> buf.getLong();
+                case DOUBLE -> buf.getDouble();
+                case TRUE   -> Boolean.TRUE;
+                case FALSE  -> Boolean.FALSE;
+                case LIST   -> {
+                    int n = buf.getInt();
+                    List<Object> list = new ArrayList<>(n);
+                    for (int i = 0; i < n; i++) list.add(value());
+                    yield list;
+                }
+                case MAP    -> {
+                    int n = buf.getInt();
+                    Map<String, Object> map = new LinkedHashMap<>();
+                    for (int i = 0; i < n; i++) map.put(string(), value());
+                    yield map;
+                }
+                default -> throw new IllegalStateException("Bad value tag " + tag);
+            };
+        }
+
+        private String string() {
+            int index = buf.getInt();
+            return index < 0 ? null : strings[index];
+        }
+    }
+
+    private static List<Field> matchFields() {
+        List<Field> fields = new ArrayList<>();
+        for (Field f : Match.class.getFields()) {
+            if (!Modifier.isStatic(f.getModifiers())) fields.add(f);
+        }
+        return fields;
+    }
+
+    private static Object get(Field f, Match m) {
+        try {
+            return f.get(m);
+        } catch (IllegalAccessException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+}
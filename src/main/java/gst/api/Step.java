@@ -3,11 +3,23 @@ package gst.api;
 import java.util.List;
 import java.util.Map;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 
+import gst.engine.actions.BoundAction;
+import gst.engine.matcher.CompiledMatch;
+
 @JsonIgnoreProperties(ignoreUnknown = true)
 public class Step {
     public Match match;
      // Each action entry is a single-key map, e.g. { "changeType": { "newType": "var" } }
     public List<Map<String,Map<String,Object>>> actions;
+
+     // Filled in by MappingLoader; never read from JSON
+    @JsonIgnore
+    public CompiledMatch compiledMatch;
+
+     // Filled in by MappingLoader: the actions above, created once and reused for every match
+    @JsonIgnore
+    public List<BoundAction> boundActions;
 }
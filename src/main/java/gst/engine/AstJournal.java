@@ -0,0 +1,122 @@
+package gst.engine;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.github.javaparser.ast.Node;
+import com.github.javaparser.ast.NodeList;
+import com.github.javaparser.ast.observer.ObservableProperty;
+import com.github.javaparser.ast.observer.PropagatingAstObserver;
+import com.github.javaparser.metamodel.PropertyMetaModel;
+
+/**
+ * Undo log of the edits made to one compilation unit.
+ * Attached when the unit is about to be changed for the first time, it records
+ * every property change and list edit as it happens; rolling back replays the
+ * inverse edits newest first. Memory is proportional to the number of edits,
+ * and an unchanged unit never gets a journal.
+ *
+ * The journal propagates itself to nodes attached after it (template output,
+ * inserted statements, added imports), so a later recipe's edits inside them
+ * are recorded too. It extends PropagatingAstObserver rather than being wrapped
+ * by SELF_PROPAGATING registration, whose wrapper drops list replacements.
+ * Confined to the worker processing the file.
+ */
+public class AstJournal extends PropagatingAstObserver {
+    // "NodeClass#PROPERTY" -> setter, shared by all journals
+    private static final Map<String, Method> SETTERS = new ConcurrentHashMap<>();
+
+    private final List<Runnable> undo = new ArrayList<>();
+    private boolean replaying;
+
+    public static AstJournal attach(Node root) {
+        AstJournal journal = new AstJournal();
+        // registered as is: the journal already propagates itself
+        root.register(journal, Node.ObserverRegistrationMode.SELF_PROPAGATING);
+        return journal;
+    }
+
+    // Position to roll back to; 0 is the unit as parsed.
+    public int mark() {
+        return undo.size();
+    }
+
+    public boolean hasChangesSince(int mark) {
+        return undo.size() > mark;
+    }
+
+    public void rollbackTo(int mark) {
+        replaying = true;
+        try {
+            for (int i = undo.size() - 1; i >= mark; i--) {
+                undo.remove(i).run();
+            }
+        } finally {
+            replaying = false;
+        }
+    }
+
+    @Override
+    public void concretePropertyChange(Node observedNode, ObservableProperty property, Object oldValue, Object newValue) {
+        if (replaying || property.isDerived()) return;
+        undo.add(() -> set(observedNode, property, oldValue));
+    }
+
+    @Override
+    public void parentChange(Node observedNode, Node previousParent, Node newParent) {
+        // follows from the property and list edits that caused it
+    }
+
+    @Override
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public void concreteListChange(NodeList<?> observedNode, ListChangeType type, int index, Node nodeAddedOrRemoved) {
+        if (replaying) return;
+        NodeList list = observedNode;
+        if (type == ListChangeType.ADDITION) {
+            undo.add(() -> list.remove(index));
+        } else {
+            undo.add(() -> list.add(index, nodeAddedOrRemoved));
+        }
+    }
+
+    @Override
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public void concreteListReplacement(NodeList<?> observedNode, int index, Node oldNode, Node newNode) {
+        if (replaying) return;
+        NodeList list = observedNode;
+        undo.add(() -> list.set(index, oldNode));
+    }
+
+    private static void set(Node node, ObservableProperty property, Object value) {
+        Method setter = SETTERS.computeIfAbsent(node.getClass().getName() + "#" + property.name(),
+                k -> findSetter(node, property));
+        try {
+            setter.invoke(node, value);
+        } catch (ReflectiveOperationException ex) {
+            throw new IllegalStateException("Cannot undo " + property + " on " + node.getClass().getSimpleName(), ex);
+        }
+    }
+
+    private static Method findSetter(Node node, ObservableProperty property) {
+        String name = property.camelCaseName();
+        for (PropertyMetaModel p : node.getMetaModel().getAllPropertyMetaModels()) {
+            if (!p.getName().equals(name)) continue;
+            Class<?> type = p.isNodeList() ? NodeList.class : p.getType();
+            try {
+                return node.getClass().getMethod(p.getSetterMethodName(), type);
+            } catch (NoSuchMethodException ex) {
+                // overloaded or declared with a wider parameter type; match by name below
+                for (Method m : node.getClass().getMethods()) {
+                    if (m.getName().equals(p.getSetterMethodName()) && m.getParameterCount() == 1
+                            && m.getParameterTypes()[0].isAssignableFrom(type)) {
+                        return m;
+                    }
+                }
+            }
+        }
+        throw new IllegalStateException("No setter for " + property + " on " + node.getClass().getSimpleName());
+    }
+}
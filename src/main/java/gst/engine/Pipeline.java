@@ -1,166 +1,537 @@
 package gst.engine;
 
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
 import java.util.List;
-import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
-import com.github.javaparser.ParserConfiguration;
-import com.github.javaparser.StaticJavaParser;
 import com.github.javaparser.ast.CompilationUnit;
 import com.github.javaparser.ast.Node;
-import com.github.javaparser.symbolsolver.JavaSymbolSolver;
-import com.github.javaparser.symbolsolver.resolution.typesolvers.CombinedTypeSolver;
-import com.github.javaparser.symbolsolver.resolution.typesolvers.JavaParserTypeSolver;
-import com.github.javaparser.symbolsolver.resolution.typesolvers.ReflectionTypeSolver;
+import com.github.javaparser.printer.lexicalpreservation.LexicalPreservingPrinter;
+import com.github.javaparser.resolution.cache.CacheStats;
 
 import gst.api.ImportMods;
 import gst.api.MappingLoader;
 import gst.api.Match;
 import gst.api.Recipe;
 import gst.api.Step;
-import gst.engine.actions.Action;
-import gst.engine.actions.ActionFactory;
-import gst.engine.matcher.NodeMatcher;
+import gst.engine.actions.BoundAction;
+import gst.engine.event.AsyncEventSink;
+import gst.engine.event.ConsoleEventSink;
+import gst.engine.event.EventSink;
+import gst.engine.event.Events;
+import gst.engine.event.Level;
+import gst.engine.incremental.IncrementalState;
+import gst.engine.matcher.DispatchIndex;
+import gst.engine.matcher.LexicalFilter;
+import gst.engine.matcher.MatchContext;
+import gst.engine.metrics.Metrics;
+import gst.engine.output.AsyncOutputWriter;
+import gst.engine.output.OutputWriter;
+import gst.engine.output.PatchOutputWriter;
+import gst.engine.output.TreeOutputWriter;
+import gst.engine.parser.ParserPool;
+import gst.engine.parser.ParserSession;
+import gst.engine.resolve.ResolutionCache;
+import gst.engine.resolve.TypeIndex;
+import gst.engine.utils.ContentHash;
 import gst.engine.validator.ValidationError;
+import gst.engine.validator.ValidationScope;
 import gst.engine.validator.Validator;
 
 public class Pipeline {
 
     public static void run(Path mappingFile, Path inputRoot, Path outputRoot) throws IOException {
-        List<Recipe> recipes = MappingLoader.load(mappingFile);
+        run(mappingFile, inputRoot, outputRoot, new PipelineOptions());
+    }
 
-        CombinedTypeSolver typeSolver = new CombinedTypeSolver(
-                new ReflectionTypeSolver(),
-                new JavaParserTypeSolver(inputRoot.toFile())
-        );
-        JavaSymbolSolver symbolSolver = new JavaSymbolSolver(typeSolver);
-        ParserConfiguration cfg = new ParserConfiguration().setSymbolResolver(symbolSolver);
-        StaticJavaParser.setConfiguration(cfg);
+    public static void run(Path mappingFile, Path inputRoot, Path outputRoot, PipelineOptions options) throws IOException {
+        EventSink console = new ConsoleEventSink(options.logLevel);
+        EventSink sink = options.eventBuffer > 0 && options.logLevel != Level.OFF
+                ? new AsyncEventSink(console, options.eventBuffer) : console;
+        TxContext ctx;
+        // closing rethrows a failure of the event thread, suppressed under one from the run
+        try (sink) {
+            ctx = execute(mappingFile, inputRoot, outputRoot, options, new Events(sink));
+        }
+        // after the sink is drained, so the summary is not interleaved with queued events
+        printSummary(ctx);
+    }
 
-        TxContext ctx = new TxContext();
+    private static TxContext execute(Path mappingFile, Path inputRoot, Path outputRoot, PipelineOptions options,
+            Events events) throws IOException {
+        long runStart = System.nanoTime();
+        List<Recipe> recipes = MappingLoader.load(mappingFile);
+        Run run = new Run(inputRoot, outputRoot, recipes, new DispatchIndex(recipes), new TxContext(options.streaming, events),
+                options.metricsOutput != null ? new Metrics() : Metrics.DISABLED);
 
+        run.preserveFormatting = options.preserveFormatting;
+        run.writer = switch (options.output) {
+            case TREE -> new TreeOutputWriter(outputRoot, options.fsync, events);
+            case PATCH -> PatchOutputWriter.single(outputRoot.resolve(PatchOutputWriter.PATCH_FILE), events);
+            case PATCH_PER_RECIPE -> PatchOutputWriter.perRecipe(outputRoot,
+                    recipes.stream().map(r -> r.name).toList(), events);
+        };
+        if (options.outputQueue > 0) {
+            run.writer = new AsyncOutputWriter(run.writer, options.outputQueue);
+        }
+        if (options.prefilter) {
+            run.filter = new LexicalFilter(recipes);
+            if (!run.filter.isEnabled()) {
+                events.emit(Level.INFO, "INFO", "Lexical pre-filter off: some step has no required tokens");
+            }
+        }
+        if (options.resolutionCache != null) {
+            run.resolutions = ResolutionCache.open(options.resolutionCache, TypeIndex.fingerprint(options.classpath), events);
+        }
+        if (options.incrementalState != null) {
+            // prefilter, workers and the like only change how outputs are produced, not what they are
+            String configHash = IncrementalState.configHash(Files.readAllBytes(mappingFile),
+                    "output=" + options.output, "outputRoot=" + outputRoot.toAbsolutePath().normalize(),
+                    "preserveFormatting=" + options.preserveFormatting,
+                    "classpath=" + TypeIndex.fingerprint(options.classpath),
+                    "typeIndex=" + options.typeIndex.toAbsolutePath().normalize());
+            run.incremental = IncrementalState.load(options.incrementalState,
+                    options.output == PipelineOptions.Output.TREE ? outputRoot : null, configHash, events);
+        }
+        // One session per worker; a file holds its session for the whole parse/match/apply/validate cycle.
+        TypeIndex classpath = options.classpath.isEmpty() ? null : TypeIndex.open(options.typeIndex, options.classpath, events);
+        ParserPool parsers = new ParserPool(inputRoot, Math.max(1, options.workers),
+                options.streaming ? options.streamingTypeCacheLimit : ParserSession.UNBOUNDED,
+                options.sharedSourceCache, classpath);
+
+        List<Path> javaFiles;
         try (Stream<Path> files = Files.walk(inputRoot)) {
-            List<Path> javaFiles = files
+            javaFiles = files
                     .filter(p -> p.toString().endsWith(".java"))
+                    .sorted()
                     .collect(Collectors.toList());
+        }
+        if (run.incremental != null) {
+            // in streaming mode workers reread their files rather than holding every changed one
+            javaFiles = run.incremental.plan(inputRoot, javaFiles, !options.streaming);
+            events.emit(Level.INFO, "INCREMENTAL", "{} unchanged files skipped, {} to process",
+                    run.incremental.getSkipped(), javaFiles.size());
+            run.metrics.counter("gst_files_total", "outcome", "incremental_skip").add(run.incremental.getSkipped());
+        }
 
-            for (Path srcFile : javaFiles) {
-                String rel = inputRoot.relativize(srcFile).toString();
-                CompilationUnit cu;
-                try {
-                    cu = StaticJavaParser.parse(srcFile);
-                } catch (IOException ex) {
-                    System.err.println("[ERROR] Failed to parse: " + srcFile + " - " + ex.getMessage());
-                    continue;
+        FileTask task = srcFile -> {
+            ParserSession session = parsers.acquire();
+            try {
+                processFile(srcFile, run, session);
+            } finally {
+                parsers.release(session);
+            }
+        };
+
+        try {
+            if (options.workers <= 1) {
+                for (Path srcFile : javaFiles) {
+                    task.process(srcFile);
                 }
+            } else {
+                runParallel(javaFiles, options.workers, task);
+            }
+        } finally {
+            run.writer.close();
+        }
+        events.emit(Level.INFO, "WRITE", "Output: {}", run.writer.describe());
 
-                boolean fileChanged = false;
-                ctx.saveOriginalFile(srcFile, cu); // Save original before any changes
-
-                for (Recipe recipe : recipes) {
-                    boolean matchedRecipe = false;
-                    System.out.println("[INFO] Applying recipe: " + recipe.name);
-
-                    for (Step step : recipe.steps) {
-                        Match m = step.match;
-                        List<Node> candidates = NodeMatcher.findCandidates(cu, m.nodeType);
-
-                        for (Node node : candidates) {
-                            if (NodeMatcher.matches(node, m, typeSolver)) {
-                                System.out.println("[MATCH] " + m.nodeType + " at " + node.getRange().orElse(null));
-                                for (var actionMap : step.actions) {
-                                    actionMap.forEach((actionName, params) -> {
-                                        ctx.saveOriginalNode(node, node.clone());
-                                        Action act = ActionFactory.create(actionName, params);
-                                        System.out.println("[ACTION] " + actionName + " on node at " + node.getRange().orElse(null));
-                                        act.apply(node, cu, ctx, symbolSolver);
-                                        ctx.registerRecipeChange(recipe.name, node);
-                                    });
-                                }
-                                matchedRecipe = true;
-                                fileChanged = true;
-                            }
-                        }
+        if (run.resolutions != null) {
+            run.resolutions.save();
+            events.emit(Level.INFO, "CACHE", "Resolution cache: {} hits, {} misses -> {}",
+                    run.resolutions.getHits(), run.resolutions.getMisses(), options.resolutionCache);
+        }
+        if (run.incremental != null) {
+            run.incremental.save();
+        }
+        CacheStats sourceStats = parsers.getSourceCacheStats();
+        if (sourceStats != null) {
+            events.emit(Level.INFO, "CACHE", "Source caches: {} hits, {} misses, {} evictions",
+                    sourceStats.hitCount(), sourceStats.missCount(), sourceStats.evictionCount());
+        }
+        if (run.metrics.isEnabled()) {
+            run.metrics.counter("gst_run_seconds_total").add(System.nanoTime() - runStart);
+            run.metrics.writeJson(options.metricsOutput.resolve("metrics.json"));
+            run.metrics.writePrometheus(options.metricsOutput.resolve("metrics.prom"));
+            events.emit(Level.INFO, "METRICS", "Metrics: {}", options.metricsOutput);
+        }
+        return run.ctx;
+    }
+
+    // Everything a worker needs that is fixed for the duration of one run.
+    private static final class Run {
+        final Path inputRoot;
+        final Path outputRoot;
+        final List<Recipe> recipes;
+        final DispatchIndex dispatch;
+        final TxContext ctx;
+        final Events events;
+        final Metrics metrics;
+        // handles looked up once, so workers only touch the adders
+        final Metrics.Histogram[] phases = new Metrics.Histogram[Phase.values().length];
+        final Metrics.Histogram[] recipeTimes;
+        final StepMetrics[] steps;
+        final Metrics.Counter nodesVisited;
+        boolean preserveFormatting;
+        OutputWriter writer;
+        LexicalFilter filter;
+        ResolutionCache resolutions;
+        IncrementalState incremental;
+
+        Run(Path inputRoot, Path outputRoot, List<Recipe> recipes, DispatchIndex dispatch, TxContext ctx, Metrics metrics) {
+            this.inputRoot = inputRoot;
+            this.outputRoot = outputRoot;
+            this.recipes = recipes;
+            this.dispatch = dispatch;
+            this.ctx = ctx;
+            this.events = ctx.getEvents();
+            this.metrics = metrics;
+            for (Phase phase : Phase.values()) {
+                phases[phase.ordinal()] = metrics.histogram("gst_phase_seconds", "phase", phase.label);
+            }
+            recipeTimes = new Metrics.Histogram[recipes.size()];
+            steps = new StepMetrics[recipes.stream().mapToInt(r -> r.steps.size()).sum()];
+            for (int r = 0; r < recipes.size(); r++) {
+                Recipe recipe = recipes.get(r);
+                recipeTimes[r] = metrics.histogram("gst_recipe_seconds", "recipe", recipe.name);
+                for (int i = 0; i < recipe.steps.size(); i++) {
+                    steps[dispatch.slotOf(recipe.steps.get(i))] = new StepMetrics(metrics, recipe.name, Integer.toString(i));
+                }
+            }
+            nodesVisited = metrics.counter("gst_nodes_visited_total");
+        }
+
+        long clock() {
+            return metrics.isEnabled() ? System.nanoTime() : 0;
+        }
+
+        // Per-file phase times, and how the file ended.
+        void finishFile(long[] phaseNanos, String outcome) {
+            if (!metrics.isEnabled()) {
+                return;
+            }
+            for (Phase phase : Phase.values()) {
+                if (phaseNanos[phase.ordinal()] > 0) {
+                    phases[phase.ordinal()].record(phaseNanos[phase.ordinal()]);
+                }
+            }
+            metrics.counter("gst_files_total", "outcome", outcome).increment();
+        }
+    }
+
+    private enum Phase {
+        READ("read"), PARSE("parse"), MATCH("match"), APPLY("apply"), IMPORTS("imports"),
+        VALIDATE("validate"), RENDER("render"), WRITE("write");
+
+        final String label;
+
+        Phase(String label) {
+            this.label = label;
+        }
+    }
+
+    private static final class StepMetrics {
+        final Metrics.Counter candidates;
+        final Metrics.Counter matches;
+        final Metrics.Counter resolutions;
+        final Metrics.Counter resolutionTime;
+        final Metrics.Counter matchTime;
+        final Metrics.Counter applyTime;
+
+        StepMetrics(Metrics metrics, String recipe, String step) {
+            candidates = metrics.counter("gst_step_candidates_total", "recipe", recipe, "step", step);
+            matches = metrics.counter("gst_step_matches_total", "recipe", recipe, "step", step);
+            resolutions = metrics.counter("gst_step_resolutions_total", "recipe", recipe, "step", step);
+            resolutionTime = metrics.counter("gst_step_resolution_seconds_total", "recipe", recipe, "step", step);
+            matchTime = metrics.counter("gst_step_match_seconds_total", "recipe", recipe, "step", step);
+            applyTime = metrics.counter("gst_step_apply_seconds_total", "recipe", recipe, "step", step);
+        }
+    }
+
+    private interface FileTask {
+        void process(Path srcFile) throws IOException;
+    }
+
+    private static void runParallel(List<Path> javaFiles, int workers, FileTask task) throws IOException {
+        ExecutorService pool = Executors.newFixedThreadPool(workers);
+        try {
+            List<Future<?>> futures = new ArrayList<>(javaFiles.size());
+            for (Path srcFile : javaFiles) {
+                futures.add(pool.submit(() -> {
+                    try {
+                        task.process(srcFile);
+                    } catch (IOException ex) {
+                        throw new UncheckedIOException(ex);
                     }
+                }));
+            }
+            for (Future<?> f : futures) {
+                f.get();
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for workers", ex);
+        } catch (ExecutionException ex) {
+            Throwable cause = ex.getCause();
+            if (cause instanceof UncheckedIOException uio) throw uio.getCause();
+            if (cause instanceof RuntimeException re) throw re;
+            if (cause instanceof Error err) throw err;
+            throw new IOException(cause);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
 
-                    if (matchedRecipe && recipe.imports != null) {
-                        ImportMods im = recipe.imports;
-                        if (im.remove != null) {
-                            cu.getImports().removeIf(id -> im.remove.contains(id.getNameAsString()));
-                            fileChanged = true;
-                            System.out.println("[IMPORT] Removed imports: " + im.remove);
+    private static void processFile(Path srcFile, Run run, ParserSession session) throws IOException {
+        List<Recipe> recipes = run.recipes;
+        DispatchIndex dispatch = run.dispatch;
+        TxContext ctx = run.ctx;
+        String rel = run.inputRoot.relativize(srcFile).toString();
+        CompilationUnit cu;
+        MatchContext matchCtx;
+        IncrementalState.FileRecord record = null;
+        boolean preserving = false;
+        byte[] source;
+        // stays zero unless metrics are enabled
+        long[] phaseNanos = new long[Phase.values().length];
+        long start = run.clock();
+        try {
+            String hash = null;
+            source = null;
+            if (run.incremental != null) {
+                hash = run.incremental.takeHash(srcFile);
+                source = run.incremental.takeSource(srcFile);
+            }
+            if (source == null) {
+                source = Files.readAllBytes(srcFile);
+            }
+            if (hash == null && (run.resolutions != null || run.incremental != null)) {
+                hash = ContentHash.sha256(source);
+            }
+            if (run.filter != null && !run.filter.mayMatch(source)) {
+                run.events.emit(Level.INFO, "SKIP", "No recipe can match: {}", rel);
+                if (run.incremental != null) {
+                    run.incremental.record(rel, run.incremental.newRecord(srcFile, hash));
+                }
+                phaseNanos[Phase.READ.ordinal()] += run.clock() - start;
+                run.finishFile(phaseNanos, "prefiltered");
+                return;
+            }
+            phaseNanos[Phase.READ.ordinal()] += run.clock() - start;
+            start = run.clock();
+            cu = session.parse(srcFile, source);
+            if (run.preserveFormatting) {
+                preserving = setupLexicalPreservation(cu, rel, run.events);
+            }
+            phaseNanos[Phase.PARSE.ordinal()] += run.clock() - start;
+            matchCtx = run.resolutions != null
+                    ? new MatchContext(session, run.resolutions.forFile(hash))
+                    : new MatchContext(session);
+            if (run.incremental != null) {
+                record = run.incremental.newRecord(cu, hash);
+            }
+        } catch (IOException ex) {
+            run.events.emit(Level.ERROR, "ERROR", "Failed to parse: {} - {}", srcFile, ex.getMessage());
+            run.finishFile(phaseNanos, "parse_error");
+            return;
+        }
+
+        boolean fileChanged = false;
+        List<OutputWriter.Revision> revisions = new ArrayList<>();
+        // errors already reported for earlier recipes; only new ones are blamed on the current one
+        Set<ValidationError> knownErrors = new LinkedHashSet<>();
+        DispatchIndex.Walk walk = dispatch.walk(cu);
+
+        for (int r = 0; r < recipes.size(); r++) {
+            Recipe recipe = recipes.get(r);
+            long recipeStart = run.clock();
+            boolean matchedRecipe = false;
+            TxContext.Savepoint savepoint = ctx.savepoint(srcFile);
+            ValidationScope scope = ValidationScope.empty(cu);
+            run.events.emit(Level.DEBUG, "INFO", "Applying recipe: {}", recipe.name);
+
+            for (Step step : recipe.steps) {
+                Match m = step.match;
+                int slot = dispatch.slotOf(step);
+                long stepStart = run.clock();
+                long applyNanos = 0;
+                long resolverCalls = matchCtx.getResolverCalls();
+                long resolverNanos = matchCtx.getResolverNanos();
+                int matches = 0;
+                List<Node> candidates = walk.candidates(slot);
+
+                for (Node node : candidates) {
+                    if (step.compiledMatch.matches(node, matchCtx)) {
+                        if (run.events.isEnabled(Level.DEBUG)) {
+                            run.events.emit(Level.DEBUG, "MATCH", "{} at {}", m.nodeType, node.getRange().orElse(null));
                         }
-                        if (im.add != null) {
-                            for (String imp : im.add) {
-                                boolean present = cu.getImports()
-                                        .stream()
-                                        .anyMatch(i -> i.getNameAsString().equals(imp));
-                                if (!present) {
-                                    cu.addImport(imp);
-                                    fileChanged = true;
-                                    System.out.println("[IMPORT] Added import: " + imp);
-                                }
+                        long applyStart = run.clock();
+                        ctx.beginChange(srcFile, cu);
+                        scope.addChange(node);
+                        for (BoundAction bound : step.boundActions) {
+                            if (run.events.isEnabled(Level.DEBUG)) {
+                                run.events.emit(Level.DEBUG, "ACTION", "{} on node at {}", bound.name, node.getRange().orElse(null));
                             }
+                            bound.action.apply(node, cu, ctx, session);
+                            ctx.registerRecipeChange(recipe.name, node);
                         }
+                        matchedRecipe = true;
+                        walk.invalidate();
+                        matchCtx.markMutated();
+                        applyNanos += run.clock() - applyStart;
+                        matches++;
                     }
+                }
 
-                    if (matchedRecipe) {
-                        ctx.markFileChanged(srcFile);
-                        ctx.registerRecipeForFile(srcFile, recipe.name);
-                    }
+                if (run.metrics.isEnabled()) {
+                    long matchNanos = System.nanoTime() - stepStart - applyNanos;
+                    StepMetrics sm = run.steps[slot];
+                    sm.candidates.add(candidates.size());
+                    sm.matches.add(matches);
+                    sm.resolutions.add(matchCtx.getResolverCalls() - resolverCalls);
+                    sm.resolutionTime.add(matchCtx.getResolverNanos() - resolverNanos);
+                    sm.matchTime.add(matchNanos);
+                    sm.applyTime.add(applyNanos);
+                    phaseNanos[Phase.MATCH.ordinal()] += matchNanos;
+                    phaseNanos[Phase.APPLY.ordinal()] += applyNanos;
                 }
+            }
 
-                if (ctx.isFileChanged(srcFile)) {
-                    List<ValidationError> errors = Validator.run(List.of(cu), ctx, symbolSolver);
-
-                    if (!errors.isEmpty()) {
-                        System.out.println("[VALIDATION] Errors found in file: " + rel);
-                        errors.forEach(System.out::println);
-
-                        Set<String> applied = ctx.getRecipesForFile(srcFile);
-
-                        Optional<Recipe> toRollback = recipes.stream()
-                            .filter(r -> r.rollbackOnError)
-                            .filter(r -> applied.contains(r.name))
-                            .findFirst();
-
-                        if (toRollback.isPresent()) {
-                        Recipe bad = toRollback.get();
-                        System.out.println("[ROLLBACK] Rolling back changes due to validation failure in recipe: "
-                                            + bad.name);
-                        ctx.getOriginalFile(srcFile).ifPresent(original -> {
-                            cu.setPackageDeclaration(original.getPackageDeclaration().orElse(null));
-                            cu.setImports(original.getImports());
-                            cu.setTypes(original.getTypes());
-                        });
-                        ctx.markRolledBack(srcFile);
-                        ctx.recordRollbackError(srcFile, errors);
-                        fileChanged = false;
-                        } else {
-                        System.out.println("[WARNING] Validation errors found, but no applied recipe had rollbackOnError=true; keeping changes.");
-                        }
+            if (!matchedRecipe) {
+                run.recipeTimes[r].record(run.clock() - recipeStart);
+                continue;
+            }
+
+            start = run.clock();
+            if (recipe.imports != null) {
+                ImportMods im = recipe.imports;
+                walk.invalidate();
+                matchCtx.markMutated();
+                if (im.remove != null) {
+                    if (cu.getImports().removeIf(id -> im.remove.contains(id.getNameAsString()))) {
+                        scope.addRemovedImports(im.remove);
                     }
+                    run.events.emit(Level.DEBUG, "IMPORT", "Removed imports: {}", im.remove);
+                }
+                if (im.add != null) {
+                    for (String imp : im.add) {
+                        boolean present = cu.getImports()
+                                .stream()
+                                .anyMatch(i -> i.getNameAsString().equals(imp));
+                        if (!present) {
+                            cu.addImport(imp);
+                            run.events.emit(Level.DEBUG, "IMPORT", "Added import: {}", imp);
+                        }
                     }
+                }
+            }
+
+            phaseNanos[Phase.IMPORTS.ordinal()] += run.clock() - start;
 
-                if (fileChanged) {
-                    Path outFile = outputRoot.resolve(rel);
-                    Files.createDirectories(outFile.getParent());
-                    Files.writeString(outFile, cu.toString(), StandardCharsets.UTF_8);
-                    System.out.println("[WRITE] Wrote transformed file: " + outFile);
-                    ctx.markTransformed(srcFile);
+            start = run.clock();
+            List<ValidationError> errors = Validator.run(scope, ctx, run.metrics);
+            phaseNanos[Phase.VALIDATE.ordinal()] += run.clock() - start;
+            List<ValidationError> introduced = errors.stream().filter(e -> !knownErrors.contains(e)).toList();
+            if (!introduced.isEmpty()) {
+                run.events.emit(Level.INFO, "VALIDATION", "Errors found in file: {} after recipe: {}", rel, recipe.name);
+                for (ValidationError error : introduced) {
+                    run.events.emit(Level.INFO, "VALIDATION", "{}", error);
+                }
 
-                } else {
-                    System.out.println("[SKIP] No changes written for: " + rel);
+                if (recipe.rollbackOnError) {
+                    run.events.emit(Level.INFO, "ROLLBACK", "Rolling back changes due to validation failure in recipe: {}",
+                            recipe.name);
+                    ctx.rollbackTo(srcFile, savepoint);
+                    ctx.markRolledBack(srcFile);
+                    ctx.registerRolledBackRecipe(srcFile, recipe.name);
+                    ctx.recordRollbackError(srcFile, introduced);
+                    walk.invalidate();
+                    run.recipeTimes[r].record(run.clock() - recipeStart);
+                    continue;
                 }
+                run.events.emit(Level.WARN, "WARNING", "Validation errors found, but recipe {} has rollbackOnError=false; keeping changes.",
+                        recipe.name);
+            }
+            knownErrors.addAll(errors);
+
+            fileChanged = true;
+            ctx.markFileChanged(srcFile);
+            ctx.registerRecipeForFile(srcFile, recipe.name);
+            if (run.writer.wantsRevisionPerRecipe()) {
+                start = run.clock();
+                revisions.add(new OutputWriter.Revision(List.of(recipe.name), render(cu, preserving, rel, run.events)));
+                phaseNanos[Phase.RENDER.ordinal()] += run.clock() - start;
+            }
+            run.recipeTimes[r].record(run.clock() - recipeStart);
+        }
+
+        if (fileChanged) {
+            if (revisions.isEmpty()) {
+                start = run.clock();
+                List<String> applied = List.copyOf(ctx.getRecipesForFile(srcFile));
+                revisions.add(new OutputWriter.Revision(applied, render(cu, preserving, rel, run.events)));
+                phaseNanos[Phase.RENDER.ordinal()] += run.clock() - start;
             }
+            start = run.clock();
+            run.writer.write(rel, new String(source, StandardCharsets.UTF_8), revisions);
+            phaseNanos[Phase.WRITE.ordinal()] += run.clock() - start;
+            ctx.markTransformed(srcFile);
+
+        } else {
+            run.events.emit(Level.INFO, "SKIP", "No changes written for: {}", rel);
+        }
+        ctx.endFile(srcFile);
+        run.nodesVisited.add(walk.getVisited());
+        run.finishFile(phaseNanos, fileChanged ? "transformed"
+                : ctx.getRolledBackFiles().contains(srcFile) ? "rolled_back" : "unchanged");
+
+        if (record != null) {
+            record.outcome = fileChanged ? IncrementalState.Outcome.TRANSFORMED
+                    : ctx.getRolledBackFiles().contains(srcFile) ? IncrementalState.Outcome.ROLLED_BACK
+                    : IncrementalState.Outcome.UNCHANGED;
+            record.recipes.addAll(ctx.getRecipesForFile(srcFile));
+            run.incremental.record(rel, record);
+        }
+    }
+
+    // Must run before the first mutation: the printer records the original tokens.
+    private static boolean setupLexicalPreservation(CompilationUnit cu, String rel, Events events) {
+        try {
+            LexicalPreservingPrinter.setup(cu);
+            return true;
+        } catch (RuntimeException ex) {
+            events.emit(Level.WARN, "WARNING", "Formatting will not be preserved for {}: {}", rel, ex.getMessage());
+            return false;
         }
+    }
+
+    // Untouched code is copied from the original tokens; only changed nodes are printed anew.
+    private static String render(CompilationUnit cu, boolean preserving, String rel, Events events) {
+        if (preserving) {
+            try {
+                return LexicalPreservingPrinter.print(cu);
+            } catch (RuntimeException ex) {
+                events.emit(Level.WARN, "WARNING", "Lexical-preserving print failed for {}, pretty printing instead: {}",
+                        rel, ex.getMessage());
+            }
+        }
+        return cu.toString();
+    }
+
+    private static void printSummary(TxContext ctx) {
         System.out.println("\n=== Transformation Summary ===");
 
         System.out.println("\n[TRANSFORMED FILES] (" + ctx.getTransformedFiles().size() + ")");
@@ -171,7 +542,7 @@ public class Pipeline {
 
         System.out.println("\n[ROLLED BACK FILES] (" + ctx.getRolledBackFiles().size() + ")");
         ctx.getRolledBackFiles().forEach(f -> {
-            System.out.println("  ~ " + f);
+            System.out.println("  ~ " + f + "  [Rolled back: " + String.join(", ", ctx.getRolledBackRecipes(f)) + "]");
             List<ValidationError> errors = ctx.getRollbackErrors(f);
             for (ValidationError err : errors) {
                 System.out.println("     =>> " + err);
@@ -185,6 +556,6 @@ public class Pipeline {
         Path inputRoot = Paths.get("src", "main", "resources", "input", "guava", "src");
         Path outputRoot = Paths.get("output", "OutputGST");
 
-        run(mappingFile, inputRoot, outputRoot);
+        run(mappingFile, inputRoot, outputRoot, PipelineOptions.fromSystemProperties());
     }
 }
@@ -0,0 +1,114 @@
+package gst.engine;
+
+import java.io.File;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import gst.engine.event.Level;
+
+public class PipelineOptions {
+    public enum Output {
+        TREE,             // full copies of changed files under the output root
+        PATCH,            // one unified diff, outputRoot/gst.patch
+        PATCH_PER_RECIPE  // outputRoot/<recipe>.patch, to be applied in mapping order
+    }
+
+    // Number of files processed concurrently; 1 keeps the single-threaded behaviour.
+    public int workers = 1;
+
+    // File holding symbol-resolution results between runs; null disables the cache.
+    public Path resolutionCache;
+
+    // Skip parsing files whose text lacks every recipe's required tokens.
+    public boolean prefilter = true;
+
+    // Write changed files with LexicalPreservingPrinter, keeping the original layout and
+    // comments outside the changed nodes, instead of pretty-printing the whole unit.
+    public boolean preserveFormatting;
+
+    public Output output = Output.TREE;
+
+    // Hand changed files to a single writer thread through a queue of this many files, so
+    // workers do not wait on the disk unless the queue is full. 0 writes on the workers.
+    public int outputQueue;
+
+    // Force tree output to disk once, after the last file is written.
+    public boolean fsync;
+
+    // Keep only compact per-file records (path, recipes, rollback errors) after each file and
+    // bound the solver caches, so heap use does not grow with the size of the repository.
+    public boolean streaming;
+
+    // Entries per source type-solver cache in streaming mode.
+    public long streamingTypeCacheLimit = 2048;
+
+    // Parsed source files the workers' symbol solvers keep, all workers together: each keeps an equal
+    // share in its own LRU cache, bounding their heap use by entries. 0 leaves the solver's defaults.
+    public long sharedSourceCache;
+
+    // Jars whose types the symbol solver can resolve, e.g. the project's dependencies. Empty resolves
+    // against the JDK and the input root only.
+    public List<Path> classpath = new ArrayList<>();
+
+    // Where the index of the classpath's types is kept; built when missing or when a jar changes.
+    public Path typeIndex = Paths.get(".gst", "types.idx");
+
+    // Per-file hashes and outcomes of the last run; unchanged files are skipped. null disables it.
+    public Path incrementalState;
+
+    // Events below this level are dropped where they are raised; DEBUG adds a line per match and action.
+    public Level logLevel = Level.INFO;
+
+    // Slots in the ring that hands events to the console thread; 0 prints on the raising thread.
+    public int eventBuffer = 8192;
+
+    // Directory for metrics.json and metrics.prom (Prometheus text): per-phase, per-recipe, per-step
+    // and per-validation-rule counts and times. null collects nothing and never reads the clock.
+    public Path metricsOutput;
+
+    // Reads gst.* system properties, e.g. -Dgst.workers=8 -Dgst.resolutionCache=.gst/resolution.bin
+    // -Dgst.incrementalState=.gst/state.json -Dgst.output=patch -Dgst.streaming=true -Dgst.log=debug
+    // -Dgst.metrics=.gst/metrics -Dgst.classpath=lib/a.jar:lib/b.jar
+    public static PipelineOptions fromSystemProperties() {
+        PipelineOptions opts = new PipelineOptions();
+        opts.workers = Integer.getInteger("gst.workers", opts.workers);
+        opts.streaming = Boolean.getBoolean("gst.streaming");
+        opts.streamingTypeCacheLimit = Long.getLong("gst.streamingTypeCacheLimit", opts.streamingTypeCacheLimit);
+        opts.sharedSourceCache = Long.getLong("gst.sharedSourceCache", opts.sharedSourceCache);
+        opts.prefilter = Boolean.parseBoolean(System.getProperty("gst.prefilter", "true"));
+        opts.preserveFormatting = Boolean.getBoolean("gst.preserveFormatting");
+        opts.outputQueue = Integer.getInteger("gst.outputQueue", opts.outputQueue);
+        opts.fsync = Boolean.getBoolean("gst.fsync");
+        String log = System.getProperty("gst.log");
+        if (log != null && !log.isBlank()) {
+            opts.logLevel = Level.valueOf(log.trim().toUpperCase(Locale.ROOT));
+        }
+        opts.eventBuffer = Integer.getInteger("gst.eventBuffer", opts.eventBuffer);
+        String output = System.getProperty("gst.output");
+        if (output != null && !output.isBlank()) {
+            opts.output = Output.valueOf(output.trim().toUpperCase(Locale.ROOT).replace('-', '_'));
+        }
+        opts.resolutionCache = pathProperty("gst.resolutionCache");
+        opts.incrementalState = pathProperty("gst.incrementalState");
+        opts.metricsOutput = pathProperty("gst.metrics");
+        String classpath = System.getProperty("gst.classpath");
+        if (classpath != null && !classpath.isBlank()) {
+            for (String jar : classpath.split(File.pathSeparator)) {
+                if (!jar.isBlank()) opts.classpath.add(Paths.get(jar.trim()));
+            }
+        }
+        Path typeIndex = pathProperty("gst.typeIndex");
+        if (typeIndex != null) {
+            opts.typeIndex = typeIndex;
+        }
+        return opts;
+    }
+
+    private static Path pathProperty(String name) {
+        String value = System.getProperty(name);
+        return value == null || value.isBlank() ? null : Paths.get(value);
+    }
+}
@@ -1,39 +1,111 @@
 package gst.engine;
 
 import java.nio.file.Path;
-import java.util.HashMap;
-import java.util.HashSet;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.LongAdder;
 
 import com.github.javaparser.ast.CompilationUnit;
 import com.github.javaparser.ast.Node;
 
+import gst.engine.event.Events;
+import gst.engine.validator.OverrideIndex;
 import gst.engine.validator.ValidationError;
 
+// Shared by all workers of a run, so every collection here must be safe for concurrent use.
+// In streaming mode nothing that references AST nodes outlives the file it came from:
+// only paths, recipe names, change counts and validation errors remain for the summary.
 public class TxContext {
-    private final Map<Path, CompilationUnit> originalFiles = new HashMap<>();
-    private final Map<Node, Node> originalNodes = new HashMap<>();
-    private final Map<String, Set<Node>> recipeChanges = new HashMap<>();
-    private final Set<Path> changedFiles = new HashSet<>();
-    private final Map<String, String> varTypeChanges = new HashMap<>();
-    private final Set<Path> rolledBackFiles = new HashSet<>();
-    private final Set<Path> successfullyTransformedFiles = new HashSet<>();
-    private final Map<Path, Set<String>> fileToRecipes = new HashMap<>();
-    private final Map<Path, List<ValidationError>> rollbackErrors = new HashMap<>();
+    private static final Path UNKNOWN_FILE = Paths.get("<unknown>");
+
+    private final boolean streaming;
+    private final Events events;
+
+    private final Map<Path, AstJournal> journals = new ConcurrentHashMap<>();
+    private final Map<String, Set<Node>> recipeChanges = new ConcurrentHashMap<>();
+    private final Map<String, LongAdder> recipeChangeCounts = new ConcurrentHashMap<>();
+    private final Set<Path> changedFiles = ConcurrentHashMap.newKeySet();
+    private final Map<Path, Map<String, String>> varTypeChanges = new ConcurrentHashMap<>();
+    // Sorted so the summary is identical regardless of worker scheduling
+    private final Set<Path> rolledBackFiles = new ConcurrentSkipListSet<>();
+    private final Set<Path> successfullyTransformedFiles = new ConcurrentSkipListSet<>();
+    private final Map<Path, Set<String>> fileToRecipes = new ConcurrentHashMap<>();
+    private final Map<Path, List<ValidationError>> rollbackErrors = new ConcurrentHashMap<>();
+    private final Map<Path, Set<String>> rolledBackRecipes = new ConcurrentHashMap<>();
+    // Holds only signature strings, so it is kept for the whole run in streaming mode too
+    private final OverrideIndex overrideIndex = new OverrideIndex();
+
+    /**
+     * State of one file between two recipes: its journal position and the
+     * variable types registered so far. Taken before each recipe runs.
+     */
+    public static final class Savepoint {
+        private final int mark;
+        private final Map<String, String> varTypes;
+
+        private Savepoint(int mark, Map<String, String> varTypes) {
+            this.mark = mark;
+            this.varTypes = varTypes;
+        }
+    }
+
+    public TxContext() {
+        this(false);
+    }
+
+    public TxContext(boolean streaming) {
+        this(streaming, Events.CONSOLE);
+    }
+
+    public TxContext(boolean streaming, Events events) {
+        this.streaming = streaming;
+        this.events = events;
+    }
+
+    // The run's events; actions report through it.
+    public Events getEvents() {
+        return events;
+    }
+
+    public OverrideIndex getOverrideIndex() {
+        return overrideIndex;
+    }
+
+    public boolean isStreaming() {
+        return streaming;
+    }
 
     public void registerRecipeForFile(Path file, String recipeName) {
-        fileToRecipes.computeIfAbsent(file, k -> new HashSet<>()).add(recipeName);
+        fileToRecipes.computeIfAbsent(file, k -> Collections.synchronizedSet(new LinkedHashSet<>())).add(recipeName);
     }
 
     public Set<String> getRecipesForFile(Path file) {
         return fileToRecipes.getOrDefault(file, Set.of());
     }
 
+    // Appends: with savepoints, several recipes of one file can be rolled back.
     public void recordRollbackError(Path file, List<ValidationError> errors) {
-        rollbackErrors.put(file, errors);
+        rollbackErrors.merge(file, List.copyOf(errors), (a, b) -> {
+            List<ValidationError> all = new ArrayList<>(a);
+            all.addAll(b);
+            return all;
+        });
+    }
+
+    public void registerRolledBackRecipe(Path file, String recipeName) {
+        rolledBackRecipes.computeIfAbsent(file, k -> Collections.synchronizedSet(new LinkedHashSet<>())).add(recipeName);
+    }
+
+    public Set<String> getRolledBackRecipes(Path file) {
+        return rolledBackRecipes.getOrDefault(file, Set.of());
     }
 
     public List<ValidationError> getRollbackErrors(Path file) {
@@ -57,44 +129,79 @@ public class TxContext {
     }
 
 
-    public void registerVarType(String varName, String newType) {
-        varTypeChanges.put(varName, newType);
+    // Variable type changes are tracked per file: names are only meaningful inside their own unit.
+    // Keyed by varKey, as the unit's storage path is absolute while the pipeline's paths need not be.
+    public void registerVarType(CompilationUnit cu, String varName, String newType) {
+        varTypeChanges.computeIfAbsent(fileOf(cu), k -> new ConcurrentHashMap<>()).put(varName, newType);
     }
 
-    public Optional<String> getVarType(String varName) {
-        return Optional.ofNullable(varTypeChanges.get(varName));
+    public Optional<String> getVarType(CompilationUnit cu, String varName) {
+        return Optional.ofNullable(varTypeChanges.getOrDefault(fileOf(cu), Map.of()).get(varName));
     }
 
-    public boolean hasVarChanged(String varName) {
-        return varTypeChanges.containsKey(varName);
+    public boolean hasVarChanged(CompilationUnit cu, String varName) {
+        return varTypeChanges.getOrDefault(fileOf(cu), Map.of()).containsKey(varName);
     }
 
 
 
-    public void saveOriginalFile(Path file, CompilationUnit cu) {
-        originalFiles.putIfAbsent(file, cu.clone());
+    // Call before the first edit of a file; later calls are no-ops. Untouched files are never journaled.
+    public void beginChange(Path file, CompilationUnit cu) {
+        journals.computeIfAbsent(file, k -> AstJournal.attach(cu));
+    }
+
+    public Savepoint savepoint(Path file) {
+        AstJournal journal = journals.get(file);
+        // no journal yet means no edits yet: position 0 is the file as parsed
+        return new Savepoint(journal == null ? 0 : journal.mark(),
+                Map.copyOf(varTypeChanges.getOrDefault(varKey(file), Map.of())));
     }
 
-    public Optional<CompilationUnit> getOriginalFile(Path file) {
-        return Optional.ofNullable(originalFiles.get(file));
+    // Undoes every edit made to the file after the savepoint was taken.
+    public void rollbackTo(Path file, Savepoint savepoint) {
+        AstJournal journal = journals.get(file);
+        if (journal != null) {
+            journal.rollbackTo(savepoint.mark);
+        }
+        if (savepoint.varTypes.isEmpty()) {
+            varTypeChanges.remove(varKey(file));
+        } else {
+            varTypeChanges.put(varKey(file), new ConcurrentHashMap<>(savepoint.varTypes));
+        }
     }
 
-    public void saveOriginalNode(Node modified, Node original) {
-        originalNodes.put(modified, original.clone());
+    // Undoes every edit made to the file since beginChange.
+    public void rollback(Path file) {
+        AstJournal journal = journals.get(file);
+        if (journal != null) {
+            journal.rollbackTo(0);
+        }
+        varTypeChanges.remove(varKey(file));
     }
 
-    public Optional<Node> getOriginalNode(Node modified) {
-        return Optional.ofNullable(originalNodes.get(modified));
+    // Drops the file's working state (undo log, variable types) once its outcome is final.
+    public void endFile(Path file) {
+        journals.remove(file);
+        varTypeChanges.remove(varKey(file));
     }
 
     public void registerRecipeChange(String recipeName, Node node) {
-        recipeChanges.computeIfAbsent(recipeName, k -> new HashSet<>()).add(node);
+        recipeChangeCounts.computeIfAbsent(recipeName, k -> new LongAdder()).increment();
+        if (!streaming) {
+            recipeChanges.computeIfAbsent(recipeName, k -> ConcurrentHashMap.newKeySet()).add(node);
+        }
     }
 
+    // Always empty in streaming mode; use getRecipeChangeCount there.
     public Set<Node> getRecipeChanges(String recipeName) {
         return recipeChanges.getOrDefault(recipeName, Set.of());
     }
 
+    public long getRecipeChangeCount(String recipeName) {
+        LongAdder count = recipeChangeCounts.get(recipeName);
+        return count == null ? 0 : count.sum();
+    }
+
     public void markFileChanged(Path file) {
         changedFiles.add(file);
     }
@@ -106,4 +213,12 @@ public class TxContext {
     public Set<Path> getChangedFiles() {
         return changedFiles;
     }
+
+    private static Path fileOf(CompilationUnit cu) {
+        return cu.getStorage().map(s -> varKey(s.getPath())).orElse(UNKNOWN_FILE);
+    }
+
+    private static Path varKey(Path file) {
+        return file.toAbsolutePath().normalize();
+    }
 }
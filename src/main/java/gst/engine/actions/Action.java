@@ -2,14 +2,16 @@ package gst.engine.actions;
 
 import com.github.javaparser.ast.CompilationUnit;
 import com.github.javaparser.ast.Node;
-import com.github.javaparser.symbolsolver.JavaSymbolSolver;
 
 import gst.engine.TxContext;
+import gst.engine.parser.ParserSession;
 
+// Created once per step when the mapping is loaded and shared by every match, file and worker,
+// so implementations keep only their configuration and must not hold state between calls.
 public interface Action {
     /**
      * Apply this action to `node` within its containing `CompilationUnit`.
      * May mutate the AST and/or record side-effects in context.
      */
-    void apply(Node node, CompilationUnit cu, TxContext context, JavaSymbolSolver solver);
+    void apply(Node node, CompilationUnit cu, TxContext context, ParserSession session);
 }
@@ -1,9 +1,22 @@
 package gst.engine.actions;
 
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 public class ActionFactory {
+    // One instance per action entry of the step, in mapping order.
+    public static List<BoundAction> bind(List<Map<String, Map<String, Object>>> actions) {
+        List<BoundAction> bound = new ArrayList<>();
+        if (actions != null) {
+            for (Map<String, Map<String, Object>> entry : actions) {
+                entry.forEach((name, params) -> bound.add(new BoundAction(name, create(name, params))));
+            }
+        }
+        return List.copyOf(bound);
+    }
+
     public static Action create(String name, Map<String, Object> params) {
         Map<String, String> stringParams = new HashMap<>();
         if (params != null) {
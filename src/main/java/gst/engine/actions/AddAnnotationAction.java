@@ -5,9 +5,10 @@ import java.util.Map;
 import com.github.javaparser.ast.CompilationUnit;
 import com.github.javaparser.ast.Node;
 import com.github.javaparser.ast.nodeTypes.NodeWithAnnotations;
-import com.github.javaparser.symbolsolver.JavaSymbolSolver;
 
 import gst.engine.TxContext;
+import gst.engine.event.Level;
+import gst.engine.parser.ParserSession;
 
 public class AddAnnotationAction implements Action {
     private final String name;
@@ -15,11 +16,10 @@ public class AddAnnotationAction implements Action {
         this.name = params.get("name");
     }
     @Override
-    public void apply(Node node, CompilationUnit cu, TxContext ctx, JavaSymbolSolver solver) {
+    public void apply(Node node, CompilationUnit cu, TxContext ctx, ParserSession session) {
         if (node instanceof NodeWithAnnotations<?> nwa) {
-            ctx.saveOriginalNode(node, node.clone());
             nwa.addAnnotation(name);
-            System.out.println("[ACTION] addAnnotation: " + name);
+            ctx.getEvents().emit(Level.DEBUG, "ACTION", "addAnnotation: {}", name);
         }
     }
 }
\ No newline at end of file
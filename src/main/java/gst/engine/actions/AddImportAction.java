@@ -4,9 +4,10 @@ import java.util.Map;
 
 import com.github.javaparser.ast.CompilationUnit;
 import com.github.javaparser.ast.Node;
-import com.github.javaparser.symbolsolver.JavaSymbolSolver;
 
 import gst.engine.TxContext;
+import gst.engine.event.Level;
+import gst.engine.parser.ParserSession;
 
 public class AddImportAction implements Action {
     private final String name;
@@ -14,13 +15,12 @@ public class AddImportAction implements Action {
         this.name = params.get("name");
     }
     @Override
-    public void apply(Node node, CompilationUnit cu, TxContext ctx, JavaSymbolSolver solver) {
-        ctx.saveOriginalNode(cu, cu.clone());
+    public void apply(Node node, CompilationUnit cu, TxContext ctx, ParserSession session) {
         boolean present = cu.getImports().stream()
             .anyMatch(i -> i.getNameAsString().equals(name));
         if (!present) {
             cu.addImport(name);
-            System.out.println("[ACTION] addImport: " + name);
+            ctx.getEvents().emit(Level.DEBUG, "ACTION", "addImport: {}", name);
         }
     }
 }
\ No newline at end of file
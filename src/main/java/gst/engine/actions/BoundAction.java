@@ -0,0 +1,12 @@
+package gst.engine.actions;
+
+// An action created once from its mapping entry, kept with the name it was declared under.
+public final class BoundAction {
+    public final String name;
+    public final Action action;
+
+    public BoundAction(String name, Action action) {
+        this.name = name;
+        this.action = action;
+    }
+}
@@ -2,16 +2,16 @@ package gst.engine.actions;
 
 import java.util.Map;
 
-import com.github.javaparser.StaticJavaParser;
 import com.github.javaparser.ast.CompilationUnit;
 import com.github.javaparser.ast.Node;
 import com.github.javaparser.ast.body.Parameter;
 import com.github.javaparser.ast.expr.ObjectCreationExpr;
 import com.github.javaparser.ast.expr.VariableDeclarationExpr;
 import com.github.javaparser.ast.type.Type;
-import com.github.javaparser.symbolsolver.JavaSymbolSolver;
 
 import gst.engine.TxContext;
+import gst.engine.event.Level;
+import gst.engine.parser.ParserSession;
 
 public class ChangeTypeAction implements Action {
     private final String newType;
@@ -21,24 +21,22 @@ public class ChangeTypeAction implements Action {
     }
 
     @Override
-    public void apply(Node node, CompilationUnit cu, TxContext ctx, JavaSymbolSolver solver) {
-        ctx.saveOriginalNode(node, node.clone());
-
+    public void apply(Node node, CompilationUnit cu, TxContext ctx, ParserSession session) {
         if (node instanceof VariableDeclarationExpr vde) {
             vde.getVariables().forEach(v -> {
-                v.setType(StaticJavaParser.parseType(newType));
-                ctx.registerVarType(v.getNameAsString(), newType);
-                System.out.println("[ACTION] Changed type of variable '" + v.getNameAsString() + "' to " + newType);
+                v.setType(session.parseType(newType));
+                ctx.registerVarType(cu, v.getNameAsString(), newType);
+                ctx.getEvents().emit(Level.DEBUG, "ACTION", "Changed type of variable '{}' to {}", v.getNameAsString(), newType);
             });
         } else if (node instanceof Parameter prm) {
-            prm.setType(StaticJavaParser.parseType(newType));
-            ctx.registerVarType(prm.getNameAsString(), newType);
-            System.out.println("[ACTION] Changed type of parameter '" + prm.getNameAsString() + "' to " + newType);
+            prm.setType(session.parseType(newType));
+            ctx.registerVarType(cu, prm.getNameAsString(), newType);
+            ctx.getEvents().emit(Level.DEBUG, "ACTION", "Changed type of parameter '{}' to {}", prm.getNameAsString(), newType);
         } else if (node instanceof ObjectCreationExpr oce) {
-            Type t = StaticJavaParser.parseType(newType);
+            Type t = session.parseType(newType);
             if (t.isClassOrInterfaceType()) {
                 oce.setType(t.asClassOrInterfaceType());
-                System.out.println("[ACTION] Changed object creation type to " + newType);
+                ctx.getEvents().emit(Level.DEBUG, "ACTION", "Changed object creation type to {}", newType);
             }
         }
     }
@@ -10,9 +10,10 @@ import com.github.javaparser.ast.Node;
 import com.github.javaparser.ast.expr.BinaryExpr;
 import com.github.javaparser.ast.expr.StringLiteralExpr;
 import com.github.javaparser.ast.expr.TextBlockLiteralExpr;
-import com.github.javaparser.symbolsolver.JavaSymbolSolver;
 
 import gst.engine.TxContext;
+import gst.engine.event.Level;
+import gst.engine.parser.ParserSession;
 import gst.engine.utils.ConcatUtils;
 
 public class CollapseLiteralConcatAction implements Action {
@@ -24,11 +25,9 @@ public class CollapseLiteralConcatAction implements Action {
   }
 
   @Override
-  public void apply(Node node, CompilationUnit cu, TxContext ctx, JavaSymbolSolver solver) {
+  public void apply(Node node, CompilationUnit cu, TxContext ctx, ParserSession session) {
     if (!(node instanceof BinaryExpr top)
      || top.getOperator() != BinaryExpr.Operator.PLUS) return;
-    ctx.saveOriginalNode(top, top.clone());
-
     List<String> parts = new ArrayList<>();
     if (!ConcatUtils.gatherLiterals(top, parts)) return;
 
@@ -45,7 +44,7 @@ public class CollapseLiteralConcatAction implements Action {
          .collect(Collectors.joining());
       top.replace(new StringLiteralExpr(rejoined));
     }
-    System.out.println("[ACTION] collapse literal concat → " + collapseStyle);
+    ctx.getEvents().emit(Level.DEBUG, "ACTION", "collapse literal concat → {}", collapseStyle);
   }
 }
 
@@ -2,7 +2,6 @@ package gst.engine.actions;
 
 import java.util.Map;
 
-import com.github.javaparser.StaticJavaParser;
 import com.github.javaparser.ast.CompilationUnit;
 import com.github.javaparser.ast.Node;
 import com.github.javaparser.ast.NodeList;
@@ -20,18 +19,17 @@ import com.github.javaparser.ast.stmt.ForStmt;
 import com.github.javaparser.ast.stmt.Statement;
 import com.github.javaparser.resolution.types.ResolvedArrayType;
 import com.github.javaparser.resolution.types.ResolvedType;
-import com.github.javaparser.symbolsolver.JavaSymbolSolver;
 
 import gst.engine.TxContext;
+import gst.engine.event.Level;
+import gst.engine.parser.ParserSession;
 
 public class ForToForEachAction implements Action {
     public ForToForEachAction(Map<String,String> params) { }
 
     @Override
-    public void apply(Node node, CompilationUnit cu, TxContext ctx, JavaSymbolSolver solver) {
+    public void apply(Node node, CompilationUnit cu, TxContext ctx, ParserSession session) {
         if (!(node instanceof ForStmt fs)) return;
-        ctx.saveOriginalNode(fs, fs.clone());
-
         // loop var name
         VariableDeclarationExpr init = (VariableDeclarationExpr) fs.getInitialization().get(0);
         String idxVar = init.getVariables().get(0).getNameAsString();
@@ -50,7 +48,7 @@ public class ForToForEachAction implements Action {
         // element type
         String elemTypeName;
         try {
-            ResolvedType rt = solver.calculateType(colExpr);
+            ResolvedType rt = session.getSymbolSolver().calculateType(colExpr);
             if (rt.isArray()) {
                 elemTypeName = ((ResolvedArrayType) rt).getComponentType().describe();
             } else if (rt.isReferenceType()) {
@@ -62,7 +60,10 @@ public class ForToForEachAction implements Action {
         }
 
         if (elemTypeName.contains("?")) {
-            System.out.println("[SKIP] Could not infer a clean element type for enhanced-for: " + colExpr + " (type: " + elemTypeName + ")");
+            if (ctx.getEvents().isEnabled(Level.DEBUG)) {
+                ctx.getEvents().emit(Level.DEBUG, "SKIP", "Could not infer a clean element type for enhanced-for: {} (type: {})",
+                        colExpr.toString(), elemTypeName);
+            }
             return;
         }
 
@@ -92,13 +93,15 @@ public class ForToForEachAction implements Action {
 
         // the ForEachStmt
         VariableDeclarator vd = new VariableDeclarator(
-            StaticJavaParser.parseType(elemTypeName),
+            session.parseType(elemTypeName),
             elemVar
         );
         VariableDeclarationExpr vde = new VariableDeclarationExpr(vd);
         ForEachStmt fes = new ForEachStmt(vde, colExpr, body);
 
         fs.replace(fes);
-        System.out.println("[ACTION] Converted classic for→enhanced-for over " + colExpr + " as " + elemVar);
+        if (ctx.getEvents().isEnabled(Level.DEBUG)) {
+            ctx.getEvents().emit(Level.DEBUG, "ACTION", "Converted classic for→enhanced-for over {} as {}", colExpr.toString(), elemVar);
+        }
     }
 }
@@ -3,14 +3,14 @@ package gst.engine.actions;
 import java.util.Map;
 import java.util.Optional;
 
-import com.github.javaparser.StaticJavaParser;
 import com.github.javaparser.ast.CompilationUnit;
 import com.github.javaparser.ast.Node;
 import com.github.javaparser.ast.stmt.BlockStmt;
 import com.github.javaparser.ast.stmt.Statement;
-import com.github.javaparser.symbolsolver.JavaSymbolSolver;
 
 import gst.engine.TxContext;
+import gst.engine.event.Level;
+import gst.engine.parser.ParserSession;
 import gst.engine.utils.ASTUtils;
 public class InsertAfterAction implements Action {
     private final String code;
@@ -20,9 +20,8 @@ public class InsertAfterAction implements Action {
     }
 
     @Override
-    public void apply(Node node, CompilationUnit cu, TxContext ctx, JavaSymbolSolver solver) {
-        ctx.saveOriginalNode(node, node.clone());
-        Statement toInsert = StaticJavaParser.parseStatement(code);
+    public void apply(Node node, CompilationUnit cu, TxContext ctx, ParserSession session) {
+        Statement toInsert = session.parseStatement(code);
 
         // Find the target statement
         Optional<Statement> targetOpt = ASTUtils.findEnclosingStatement(node);
@@ -36,7 +35,7 @@ public class InsertAfterAction implements Action {
             for (int i = 0; i < stmts.size(); i++) {
                 if (stmts.get(i) == target) {
                     stmts.add(i + 1, toInsert);
-                    System.out.println("[ACTION] insertAfter: " + code);
+                    ctx.getEvents().emit(Level.DEBUG, "ACTION", "insertAfter: {}", code);
                     break;
                 }
             }
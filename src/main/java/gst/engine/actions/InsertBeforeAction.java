@@ -3,14 +3,14 @@ package gst.engine.actions;
 import java.util.Map;
 import java.util.Optional;
 
-import com.github.javaparser.StaticJavaParser;
 import com.github.javaparser.ast.CompilationUnit;
 import com.github.javaparser.ast.Node;
 import com.github.javaparser.ast.stmt.BlockStmt;
 import com.github.javaparser.ast.stmt.Statement;
-import com.github.javaparser.symbolsolver.JavaSymbolSolver;
 
 import gst.engine.TxContext;
+import gst.engine.event.Level;
+import gst.engine.parser.ParserSession;
 import gst.engine.utils.ASTUtils;
 
 public class InsertBeforeAction implements Action {
@@ -21,9 +21,8 @@ public class InsertBeforeAction implements Action {
     }
 
     @Override
-    public void apply(Node node, CompilationUnit cu, TxContext ctx, JavaSymbolSolver solver) {
-        ctx.saveOriginalNode(node, node.clone());
-        Statement toInsert = StaticJavaParser.parseStatement(code);
+    public void apply(Node node, CompilationUnit cu, TxContext ctx, ParserSession session) {
+        Statement toInsert = session.parseStatement(code);
 
         Optional<Statement> targetOpt = ASTUtils.findEnclosingStatement(node);
         if (targetOpt.isEmpty()) return;
@@ -35,7 +34,7 @@ public class InsertBeforeAction implements Action {
             for (int i = 0; i < stmts.size(); i++) {
                 if (stmts.get(i) == target) {
                     stmts.add(i, toInsert);
-                    System.out.println("[ACTION] insertBefore: " + code);
+                    ctx.getEvents().emit(Level.DEBUG, "ACTION", "insertBefore: {}", code);
                     break;
                 }
             }
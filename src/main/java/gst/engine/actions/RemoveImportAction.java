@@ -4,9 +4,10 @@ import java.util.Map;
 
 import com.github.javaparser.ast.CompilationUnit;
 import com.github.javaparser.ast.Node;
-import com.github.javaparser.symbolsolver.JavaSymbolSolver;
 
 import gst.engine.TxContext;
+import gst.engine.event.Level;
+import gst.engine.parser.ParserSession;
 
 public class RemoveImportAction implements Action {
     private final String name;
@@ -14,9 +15,8 @@ public class RemoveImportAction implements Action {
         this.name = params.get("name");
     }
     @Override
-    public void apply(Node node, CompilationUnit cu, TxContext ctx, JavaSymbolSolver solver) {
-        ctx.saveOriginalNode(cu, cu.clone());
+    public void apply(Node node, CompilationUnit cu, TxContext ctx, ParserSession session) {
         cu.getImports().removeIf(i -> i.getNameAsString().equals(name));
-        System.out.println("[ACTION] removeImport: " + name);
+        ctx.getEvents().emit(Level.DEBUG, "ACTION", "removeImport: {}", name);
     }
 }
\ No newline at end of file
@@ -4,16 +4,16 @@ import java.util.Map;
 
 import com.github.javaparser.ast.CompilationUnit;
 import com.github.javaparser.ast.Node;
-import com.github.javaparser.symbolsolver.JavaSymbolSolver;
 
 import gst.engine.TxContext;
+import gst.engine.event.Level;
+import gst.engine.parser.ParserSession;
 
 public class RemoveNodeAction implements Action {
     public RemoveNodeAction(Map<String, String> params) {}
     @Override
-    public void apply(Node node, CompilationUnit cu, TxContext ctx, JavaSymbolSolver solver) {
-        ctx.saveOriginalNode(node, node.clone());
+    public void apply(Node node, CompilationUnit cu, TxContext ctx, ParserSession session) {
         node.remove();
-        System.out.println("[ACTION] removeNode: " + node.getClass().getSimpleName());
+        ctx.getEvents().emit(Level.DEBUG, "ACTION", "removeNode: {}", node.getClass().getSimpleName());
     }
 }
\ No newline at end of file
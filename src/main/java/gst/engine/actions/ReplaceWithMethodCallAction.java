@@ -9,31 +9,30 @@ import com.github.javaparser.ast.expr.Expression;
 import com.github.javaparser.ast.expr.MethodCallExpr;
 import com.github.javaparser.ast.expr.NameExpr;
 import com.github.javaparser.ast.expr.ObjectCreationExpr;
-import com.github.javaparser.symbolsolver.JavaSymbolSolver;
 
 import gst.engine.TxContext;
+import gst.engine.event.Level;
+import gst.engine.parser.ParserSession;
 
 public class ReplaceWithMethodCallAction implements Action {
     private final String scope;
     private final String method;
     private final boolean includeScopeArg;
-    private Boolean unwrapScope;
+    private final boolean unwrapScope;
 
     public ReplaceWithMethodCallAction(Map<String, String> params) {
         this.scope = params.get("scope");
         this.method = params.getOrDefault("method", "now");
         this.includeScopeArg = Boolean.parseBoolean(params.getOrDefault("includeScopeArg", "false"));
-        this.unwrapScope   = Boolean.valueOf(params.getOrDefault("unwrapScopeArg","false"));
+        this.unwrapScope   = Boolean.parseBoolean(params.getOrDefault("unwrapScopeArg","false"));
     }
 
     @Override
-    public void apply(Node node, CompilationUnit cu, TxContext ctx, JavaSymbolSolver solver) {
-        ctx.saveOriginalNode(node, node.clone());
-
+    public void apply(Node node, CompilationUnit cu, TxContext ctx, ParserSession session) {
         if (node instanceof ObjectCreationExpr oce) {
             var replacement = new MethodCallExpr(new NameExpr(scope), method);
             oce.replace(replacement);
-            System.out.println("[ACTION] Replaced 'new' expression with method call: " + scope + "." + method + "()");
+            ctx.getEvents().emit(Level.DEBUG, "ACTION", "Replaced 'new' expression with method call: {}.{}()", scope, method);
         } else if (node instanceof MethodCallExpr mc) {
             NodeList<Expression> args = new NodeList<>();
             // Optionally include original scope as first argument
@@ -47,7 +46,7 @@ public class ReplaceWithMethodCallAction implements Action {
 
             MethodCallExpr newCall = new MethodCallExpr(new NameExpr(scope), method, args);
             mc.replace(newCall);
-            System.out.println("[ACTION] Replaced method call with: " + scope + "." + method + "(...)");
+            ctx.getEvents().emit(Level.DEBUG, "ACTION", "Replaced method call with: {}.{}(...)", scope, method);
         }
     }
 
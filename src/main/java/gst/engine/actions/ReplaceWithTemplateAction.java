@@ -2,32 +2,40 @@ package gst.engine.actions;
 
 import java.util.Map;
 
-import com.github.javaparser.StaticJavaParser;
 import com.github.javaparser.ast.CompilationUnit;
 import com.github.javaparser.ast.Node;
 import com.github.javaparser.ast.expr.Expression;
 import com.github.javaparser.ast.stmt.Statement;
-import com.github.javaparser.symbolsolver.JavaSymbolSolver;
 
 import gst.engine.TxContext;
+import gst.engine.event.Level;
+import gst.engine.parser.ParserSession;
 
 public class ReplaceWithTemplateAction implements Action {
     private final String template;
+    // parsed both ways up front; the matched node decides which one is used
+    private final Template asStatement;
+    private final Template asExpression;
+
     public ReplaceWithTemplateAction(Map<String, String> params) {
         this.template = params.get("template");
+        if (template == null) {
+            throw new IllegalArgumentException("replaceWithTemplate requires a 'template' parameter");
+        }
+        this.asStatement = Template.statement(template);
+        this.asExpression = Template.expression(template);
     }
     @Override
-    public void apply(Node node, CompilationUnit cu, TxContext ctx, JavaSymbolSolver solver) {
-        ctx.saveOriginalNode(node, node.clone());
+    public void apply(Node node, CompilationUnit cu, TxContext ctx, ParserSession session) {
         Node replacement;
         if (node instanceof Statement) {
-            replacement = StaticJavaParser.parseStatement(template);
+            replacement = asStatement.instantiate(null, session);
         } else if (node instanceof Expression) {
-            replacement = StaticJavaParser.parseExpression(template);
+            replacement = asExpression.instantiate(null, session);
         } else {
             return;
         }
         node.replace(replacement);
-        System.out.println("[ACTION] replaceWithTemplate: " + template);
+        ctx.getEvents().emit(Level.DEBUG, "ACTION", "replaceWithTemplate: {}", template);
     }
 }
\ No newline at end of file
@@ -12,9 +12,10 @@ import com.github.javaparser.ast.stmt.BreakStmt;
 import com.github.javaparser.ast.stmt.ReturnStmt;
 import com.github.javaparser.ast.stmt.SwitchEntry;
 import com.github.javaparser.ast.stmt.SwitchStmt;
-import com.github.javaparser.symbolsolver.JavaSymbolSolver;
 
 import gst.engine.TxContext;
+import gst.engine.event.Level;
+import gst.engine.parser.ParserSession;
 
 public class SwitchToReturnExpressionAction implements Action {
     public SwitchToReturnExpressionAction(Map<String, String> params) {
@@ -25,10 +26,8 @@ public class SwitchToReturnExpressionAction implements Action {
     public void apply(com.github.javaparser.ast.Node node,
                       CompilationUnit cu,
                       TxContext ctx,
-                      JavaSymbolSolver solver) {
+                      ParserSession session) {
         if (!(node instanceof SwitchStmt sw)) return;
-        ctx.saveOriginalNode(sw, sw.clone());
-
         // 1) Build the new SwitchExpr
         SwitchExpr sexpr = new SwitchExpr();
         sexpr.setSelector(sw.getSelector().clone());
@@ -67,6 +66,6 @@ public class SwitchToReturnExpressionAction implements Action {
         ReturnStmt ret = new ReturnStmt(sexpr);
         sw.replace(ret);
 
-        System.out.println("[ACTION] switch→return-expr: replaced SwitchStmt with return switch-expression");
+        ctx.getEvents().emit(Level.DEBUG, "ACTION", "switch→return-expr: replaced SwitchStmt with return switch-expression");
     }
 }
@@ -0,0 +1,133 @@
+package gst.engine.actions;
+
+import java.util.List;
+
+import com.github.javaparser.JavaParser;
+import com.github.javaparser.ParseProblemException;
+import com.github.javaparser.ParseResult;
+import com.github.javaparser.ParserConfiguration;
+import com.github.javaparser.Problem;
+import com.github.javaparser.ast.Node;
+import com.github.javaparser.ast.expr.ArrayAccessExpr;
+import com.github.javaparser.ast.expr.ArrayCreationExpr;
+import com.github.javaparser.ast.expr.ArrayInitializerExpr;
+import com.github.javaparser.ast.expr.ClassExpr;
+import com.github.javaparser.ast.expr.EnclosedExpr;
+import com.github.javaparser.ast.expr.Expression;
+import com.github.javaparser.ast.expr.FieldAccessExpr;
+import com.github.javaparser.ast.expr.LiteralExpr;
+import com.github.javaparser.ast.expr.MethodCallExpr;
+import com.github.javaparser.ast.expr.NameExpr;
+import com.github.javaparser.ast.expr.ObjectCreationExpr;
+import com.github.javaparser.ast.expr.SuperExpr;
+import com.github.javaparser.ast.expr.ThisExpr;
+import com.github.javaparser.ast.nodeTypes.NodeWithArguments;
+
+import gst.engine.parser.ParserSession;
+
+/**
+ * A code template parsed once, when its action is created. Each use clones the
+ * parsed skeleton and splices the argument into the $ARG$ holes, so applying
+ * it neither prints nor re-parses anything.
+ *
+ * A hole is an occurrence of $ARG$ that parses as a plain name. An argument
+ * that would bind differently where the hole sits (a + b as the scope of a
+ * call) is parenthesised. If some occurrence is not a name, e.g. inside a
+ * string literal, the template falls back to text substitution and parsing.
+ *
+ * The skeleton is never attached to a tree and only read by clone(), so one
+ * template can be shared by all workers.
+ */
+final class Template {
+    static final String ARG = "$ARG$";
+
+    private final String text;
+    private final Node skeleton;
+    private final List<Problem> problems;
+    private final int occurrences;
+    private final boolean structural;
+
+    private Template(String text, ParseResult<? extends Node> parsed) {
+        this.text = text;
+        if (parsed.isSuccessful() && parsed.getResult().isPresent()) {
+            this.skeleton = parsed.getResult().get();
+            this.problems = null;
+        } else {
+            this.skeleton = null;
+            this.problems = List.copyOf(parsed.getProblems());
+        }
+        this.occurrences = occurrences(text);
+        this.structural = skeleton != null && holes(skeleton).size() == occurrences;
+    }
+
+    static Template expression(String text) {
+        return new Template(text, new JavaParser(new ParserConfiguration()).parseExpression(text));
+    }
+
+    static Template statement(String text) {
+        return new Template(text, new JavaParser(new ParserConfiguration()).parseStatement(text));
+    }
+
+    /**
+     * A fresh copy of the template with arg (cloned) in every hole; arg may be null
+     * to take the template as written. Throws a new ParseProblemException with the
+     * template's problems, as parsing it on the spot would.
+     */
+    @SuppressWarnings("unchecked")
+    <T extends Node> T instantiate(Expression arg, ParserSession session) {
+        if (skeleton == null) {
+            throw new ParseProblemException(problems);
+        }
+        if (arg == null || occurrences == 0) {
+            return (T) skeleton.clone();
+        }
+        if (!structural) {
+            String substituted = text.replace(ARG, arg.toString());
+            return (T) (skeleton instanceof Expression
+                    ? session.parseExpression(substituted)
+                    : session.parseStatement(substituted));
+        }
+        Node copy = skeleton.clone();
+        for (NameExpr hole : holes(copy)) {
+            Expression value = arg.clone();
+            if (needsParentheses(hole, value)) {
+                value = new EnclosedExpr(value);
+            }
+            if (hole == copy) {
+                return (T) value;
+            }
+            hole.replace(value);
+        }
+        return (T) copy;
+    }
+
+    private static List<NameExpr> holes(Node root) {
+        return root.findAll(NameExpr.class, n -> n.getNameAsString().equals(ARG));
+    }
+
+    private static int occurrences(String text) {
+        int count = 0;
+        for (int i = text.indexOf(ARG); i >= 0; i = text.indexOf(ARG, i + ARG.length())) {
+            count++;
+        }
+        return count;
+    }
+
+    // Only where the hole is a whole operand on its own (an argument, an array element,
+    // the template itself) can any expression go in unparenthesised.
+    private static boolean needsParentheses(NameExpr hole, Expression value) {
+        if (value instanceof NameExpr || value instanceof LiteralExpr || value instanceof MethodCallExpr
+                || value instanceof FieldAccessExpr || value instanceof ArrayAccessExpr
+                || value instanceof ObjectCreationExpr || value instanceof ArrayCreationExpr
+                || value instanceof ThisExpr || value instanceof SuperExpr || value instanceof ClassExpr
+                || value instanceof EnclosedExpr) {
+            return false;
+        }
+        Node parent = hole.getParentNode().orElse(null);
+        if (parent == null || parent instanceof EnclosedExpr || parent instanceof ArrayInitializerExpr) {
+            return false;
+        }
+        return !(parent instanceof NodeWithArguments<?> call
+                && call.getArguments().stream().anyMatch(a -> a == hole));
+    }
+}
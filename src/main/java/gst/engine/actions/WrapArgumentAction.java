@@ -3,36 +3,41 @@ package gst.engine.actions;
 import java.util.List;
 import java.util.Map;
 
-import com.github.javaparser.StaticJavaParser;
 import com.github.javaparser.ast.CompilationUnit;
 import com.github.javaparser.ast.Node;
 import com.github.javaparser.ast.expr.Expression;
 import com.github.javaparser.ast.expr.MethodCallExpr;
-import com.github.javaparser.symbolsolver.JavaSymbolSolver;
 
 import gst.engine.TxContext;
+import gst.engine.event.Level;
+import gst.engine.parser.ParserSession;
 
 public class WrapArgumentAction implements Action {
-    private final String template;
+    private final Template template;
     private final List<String> addImports;
 
     @SuppressWarnings("unchecked")
     public WrapArgumentAction(Map<String, Object> params) {
-        this.template   = (String) params.get("template");
-        this.addImports = (List<String>) params.get("addImports");
+        Object text = params == null ? null : params.get("template");
+        if (text == null) {
+            throw new IllegalArgumentException("wrapArgument requires a 'template' parameter");
+        }
+        this.template   = Template.expression(text.toString());
+        List<String> imports = (List<String>) params.get("addImports");
+        this.addImports = imports == null ? null : List.copyOf(imports);
     }
 
     @Override
-    public void apply(Node node, CompilationUnit cu, TxContext ctx, JavaSymbolSolver solver) {
+    public void apply(Node node, CompilationUnit cu, TxContext ctx, ParserSession session) {
         if (!(node instanceof MethodCallExpr mc)) return;
 
-        ctx.saveOriginalNode(node, node.clone());
-
         for (int i = 0; i < mc.getArguments().size(); i++) {
             Expression arg = mc.getArgument(i);
-            String wrapped = template.replace("$ARG$", arg.toString());
-            mc.setArgument(i, StaticJavaParser.parseExpression(wrapped));
-            System.out.println("[ACTION] Wrapped argument '" + arg + "' with template: " + wrapped);
+            Expression wrapped = template.instantiate(arg, session);
+            mc.setArgument(i, wrapped);
+            if (ctx.getEvents().isEnabled(Level.DEBUG)) {
+                ctx.getEvents().emit(Level.DEBUG, "ACTION", "Wrapped argument '{}' with template: {}", arg.toString(), wrapped.toString());
+            }
         }
 
         if (addImports != null) {
@@ -42,7 +47,7 @@ public class WrapArgumentAction implements Action {
                     .anyMatch(id -> id.getNameAsString().equals(imp));
                 if (!present) {
                     cu.addImport(imp);
-                    System.out.println("[IMPORT] Added import: " + imp);
+                    ctx.getEvents().emit(Level.DEBUG, "IMPORT", "Added import: {}", imp);
                 }
             }
         }
@@ -0,0 +1,136 @@
+package gst.engine.event;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Hands events to another sink on a background thread, so workers never wait
+ * on the console. Events go into a ring of preallocated slots: a worker claims
+ * a sequence number, fills the slot and publishes it; the consumer delivers
+ * slots strictly in sequence order. Nothing is allocated per event beyond the
+ * caller's arguments.
+ *
+ * Events are never dropped. When the ring is full, workers wait for the
+ * consumer; size the ring so that only a slow terminal causes that.
+ *
+ * The first failure of the wrapped sink is rethrown by the next accept() and
+ * by close(); the consumer keeps delivering the remaining events meanwhile,
+ * so workers never wait on a ring that is no longer drained.
+ */
+public class AsyncEventSink implements EventSink {
+    private static final long MAX_IDLE_NANOS = 1_000_000;
+
+    private final EventSink delegate;
+    private final Slot[] ring;
+    private final int mask;
+    private final AtomicLong claimed = new AtomicLong();
+    private volatile long delivered;
+    private volatile boolean closing;
+    private volatile Throwable failure;
+    private final Thread consumer;
+
+    private static final class Slot {
+        // sequence of the event in this slot once published, -1 before
+        volatile long published = -1;
+        Level level;
+        String tag;
+        String message;
+        Object a;
+        Object b;
+        Object c;
+    }
+
+    // capacity is rounded up to a power of two.
+    public AsyncEventSink(EventSink delegate, int capacity) {
+        this.delegate = delegate;
+        int size = Integer.highestOneBit(Math.max(2, capacity) - 1) << 1;
+        this.ring = new Slot[size];
+        for (int i = 0; i < size; i++) {
+            ring[i] = new Slot();
+        }
+        this.mask = size - 1;
+        this.consumer = new Thread(this::consume, "gst-events");
+        consumer.setDaemon(true);
+        consumer.start();
+    }
+
+    @Override
+    public Level threshold() {
+        return delegate.threshold();
+    }
+
+    @Override
+    public void accept(Level level, String tag, String message, Object a, Object b, Object c) {
+        checkFailure();
+        long seq = claimed.getAndIncrement();
+        while (seq - delivered >= ring.length) {
+            // ring full: wait for the consumer to free this slot
+            LockSupport.parkNanos(10_000);
+        }
+        Slot slot = ring[(int) seq & mask];
+        slot.level = level;
+        slot.tag = tag;
+        slot.message = message;
+        slot.a = a;
+        slot.b = b;
+        slot.c = c;
+        slot.published = seq;
+    }
+
+    // Delivers everything accepted so far, then stops the consumer and closes the delegate.
+    @Override
+    public void close() {
+        closing = true;
+        LockSupport.unpark(consumer);
+        try {
+            consumer.join();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+        try {
+            delegate.close();
+        } catch (Throwable ex) {
+            recordFailure(ex);
+        }
+        checkFailure();
+    }
+
+    private void consume() {
+        long seq = 0;
+        long idle = 0;
+        while (true) {
+            Slot slot = ring[(int) seq & mask];
+            if (slot.published == seq) {
+                try {
+                    delegate.accept(slot.level, slot.tag, slot.message, slot.a, slot.b, slot.c);
+                } catch (Throwable ex) {
+                    recordFailure(ex);
+                }
+                slot.a = slot.b = slot.c = null;
+                delivered = ++seq;
+                idle = 0;
+            } else if (closing && seq == claimed.get()) {
+                return;
+            } else {
+                idle = Math.min(MAX_IDLE_NANOS, Math.max(1_000, idle * 2));
+                LockSupport.parkNanos(idle);
+            }
+        }
+    }
+
+    private void recordFailure(Throwable ex) {
+        if (failure == null) {
+            failure = ex;
+        }
+    }
+
+    private void checkFailure() {
+        Throwable ex = failure;
+        if (ex instanceof Error error) {
+            throw error;
+        }
+        if (ex != null) {
+            throw new IllegalStateException("Delivering events failed", ex);
+        }
+    }
+}
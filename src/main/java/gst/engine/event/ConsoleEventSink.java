@@ -0,0 +1,25 @@
+package gst.engine.event;
+
+// Prints "[TAG] message", errors to stderr and everything else to stdout.
+public class ConsoleEventSink implements EventSink {
+    private final Level threshold;
+
+    public ConsoleEventSink(Level threshold) {
+        this.threshold = threshold;
+    }
+
+    @Override
+    public Level threshold() {
+        return threshold;
+    }
+
+    @Override
+    public void accept(Level level, String tag, String message, Object a, Object b, Object c) {
+        String line = "[" + tag + "] " + EventSink.format(message, a, b, c);
+        if (level == Level.ERROR) {
+            System.err.println(line);
+        } else {
+            System.out.println(line);
+        }
+    }
+}
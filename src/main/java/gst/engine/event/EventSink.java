@@ -0,0 +1,33 @@
+package gst.engine.event;
+
+import java.io.Closeable;
+
+/**
+ * Receives engine events. An event is a level, a tag such as "MATCH", a message
+ * with {} placeholders and up to three arguments filling them, in order; unused
+ * arguments are null. Formatting is left to the sink, so nothing is concatenated
+ * for events nobody prints. Arguments must be immutable values (strings, numbers,
+ * ranges), never AST nodes: an async sink formats them later, on another thread.
+ */
+public interface EventSink extends Closeable {
+    Level threshold();
+
+    void accept(Level level, String tag, String message, Object a, Object b, Object c);
+
+    // Writes out anything buffered; the sink must not be used afterwards.
+    @Override
+    default void close() {
+    }
+
+    static String format(String message, Object a, Object b, Object c) {
+        StringBuilder out = new StringBuilder(message.length() + 32);
+        int next = 0;
+        int from = 0;
+        for (int at = message.indexOf("{}"); at >= 0 && next < 3; at = message.indexOf("{}", from)) {
+            out.append(message, from, at).append(next == 0 ? a : next == 1 ? b : c);
+            next++;
+            from = at + 2;
+        }
+        return out.append(message, from, message.length()).toString();
+    }
+}
@@ -0,0 +1,51 @@
+package gst.engine.event;
+
+/**
+ * Where one run sends its events. Pipeline creates one per run from the
+ * configured sink and hands it to the components of that run through the
+ * TxContext or their constructors, so concurrent runs never share a sink or
+ * a threshold. CONSOLE serves code called outside a run.
+ *
+ * emit() checks the level before anything else, so a disabled event costs one
+ * comparison. Callers that would have to compute an argument (print a node,
+ * build a list) should check isEnabled() first.
+ */
+public final class Events {
+    public static final Events CONSOLE = new Events(new ConsoleEventSink(Level.INFO));
+
+    private final EventSink sink;
+    private final int threshold;
+
+    public Events(EventSink sink) {
+        this.sink = sink;
+        this.threshold = sink.threshold().ordinal();
+    }
+
+    public boolean isEnabled(Level level) {
+        return level.ordinal() >= threshold;
+    }
+
+    public void emit(Level level, String tag, String message) {
+        if (level.ordinal() >= threshold) {
+            sink.accept(level, tag, message, null, null, null);
+        }
+    }
+
+    public void emit(Level level, String tag, String message, Object a) {
+        if (level.ordinal() >= threshold) {
+            sink.accept(level, tag, message, a, null, null);
+        }
+    }
+
+    public void emit(Level level, String tag, String message, Object a, Object b) {
+        if (level.ordinal() >= threshold) {
+            sink.accept(level, tag, message, a, b, null);
+        }
+    }
+
+    public void emit(Level level, String tag, String message, Object a, Object b, Object c) {
+        if (level.ordinal() >= threshold) {
+            sink.accept(level, tag, message, a, b, c);
+        }
+    }
+}
@@ -0,0 +1,10 @@
+package gst.engine.event;
+
+// Severity of an event; a sink drops everything below its threshold, and OFF drops everything.
+public enum Level {
+    DEBUG,  // per node: matches, actions, import edits
+    INFO,   // per file and per run
+    WARN,
+    ERROR,
+    OFF
+}
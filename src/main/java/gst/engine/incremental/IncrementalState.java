@@ -0,0 +1,276 @@
+package gst.engine.incremental;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.javaparser.ast.CompilationUnit;
+import com.github.javaparser.ast.ImportDeclaration;
+import com.github.javaparser.ast.body.TypeDeclaration;
+import com.github.javaparser.ast.expr.AnnotationExpr;
+import com.github.javaparser.ast.expr.FieldAccessExpr;
+import com.github.javaparser.ast.expr.Name;
+import com.github.javaparser.ast.expr.NameExpr;
+import com.github.javaparser.ast.type.ClassOrInterfaceType;
+
+import gst.engine.event.Events;
+import gst.engine.event.Level;
+import gst.engine.utils.ContentHash;
+
+/**
+ * Per-file outcome of the previous run, used to skip files that cannot
+ * produce a different result: same content hash, same run configuration
+ * (mapping, output options, classpath; see {@link #configHash}), and no
+ * referenced type declared in a file that changed or disappeared since.
+ *
+ * Dependencies are tracked by simple type name, one level deep. That is
+ * deliberately coarse (a name collision only costs a reparse), but a change
+ * to a supertype of a referenced type is not seen; delete the state file
+ * after such a change to force a full run.
+ */
+public class IncrementalState {
+    private static final int VERSION = 2;
+
+    public enum Outcome { TRANSFORMED, ROLLED_BACK, UNCHANGED }
+
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public static class FileRecord {
+        public String hash;
+        public Outcome outcome = Outcome.UNCHANGED;
+        public List<String> recipes = new ArrayList<>();
+        public Set<String> declares = new TreeSet<>();
+        public Set<String> references = new TreeSet<>();
+    }
+
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    static class Snapshot {
+        public int version;
+        public String configHash;
+        public Map<String, FileRecord> files = new TreeMap<>();
+    }
+
+    private final Path file;
+    private final Path outputRoot;
+    private final String configHash;
+    private final Events events;
+    private final boolean configChanged;
+    private final Map<String, FileRecord> previous;
+    private final Map<String, FileRecord> current = new ConcurrentHashMap<>();
+    // hashes and, if kept, contents read by plan for the files it returned
+    private final Map<Path, String> plannedHashes = new ConcurrentHashMap<>();
+    private final Map<Path, byte[]> plannedSources = new ConcurrentHashMap<>();
+    private int skipped;
+
+    private IncrementalState(Path file, Path outputRoot, String configHash, Snapshot last, Events events) {
+        this.file = file;
+        this.outputRoot = outputRoot;
+        this.configHash = configHash;
+        this.events = events;
+        this.previous = last.files;
+        this.configChanged = !configHash.equals(last.configHash);
+    }
+
+    /**
+     * outputRoot holds one output file per transformed input; null when outputs are
+     * not per file (patches), so every transformed file is reprocessed to rewrite them.
+     */
+    public static IncrementalState load(Path file, Path outputRoot, String configHash, Events events) throws IOException {
+        Snapshot last = new Snapshot();
+        if (Files.isRegularFile(file)) {
+            Snapshot read = new ObjectMapper().readValue(file.toFile(), Snapshot.class);
+            if (read.version == VERSION && read.files != null) {
+                last = read;
+            } else {
+                events.emit(Level.WARN, "INCREMENTAL", "Ignoring state file with unknown version: {}", file);
+            }
+        }
+        return new IncrementalState(file, outputRoot, configHash, last, events);
+    }
+
+    /**
+     * Hash of everything besides the sources that decides a run's outputs: the
+     * mapping file's content and the given option values, e.g. output mode and
+     * classpath fingerprint.
+     */
+    public static String configHash(byte[] mapping, String... options) {
+        StringBuilder sb = new StringBuilder(ContentHash.sha256(mapping));
+        for (String option : options) {
+            sb.append('\n').append(option);
+        }
+        return ContentHash.sha256(sb.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Returns the files that must be processed this run, in input order.
+     * Skipped files keep their previous record and output. Each returned file's
+     * hash, and with keepSources the content of each changed one, can be taken
+     * once with {@link #takeHash} and {@link #takeSource} instead of reading it again.
+     */
+    public List<Path> plan(Path inputRoot, List<Path> javaFiles, boolean keepSources) throws IOException {
+        Set<String> changedTypes = new HashSet<>();
+        Set<String> dirty = new HashSet<>();
+        Set<String> present = new HashSet<>();
+        Map<Path, String> hashes = new HashMap<>();
+        Map<Path, byte[]> sources = new HashMap<>();
+
+        for (Path src : javaFiles) {
+            String rel = inputRoot.relativize(src).toString();
+            present.add(rel);
+            byte[] content = Files.readAllBytes(src);
+            String hash = ContentHash.sha256(content);
+            hashes.put(src, hash);
+            FileRecord prev = previous.get(rel);
+            if (prev == null || !prev.hash.equals(hash)) {
+                // only changed files are kept: they are processed for certain, and usually few
+                if (keepSources) {
+                    sources.put(src, content);
+                }
+                dirty.add(rel);
+                changedTypes.add(stem(src));
+                if (prev != null) changedTypes.addAll(prev.declares);
+            }
+        }
+        for (Map.Entry<String, FileRecord> e : previous.entrySet()) {
+            if (!present.contains(e.getKey())) {
+                changedTypes.addAll(e.getValue().declares);
+                discardOutput(e.getKey(), e.getValue());
+            }
+        }
+
+        List<Path> toProcess = new ArrayList<>();
+        for (Path src : javaFiles) {
+            String rel = inputRoot.relativize(src).toString();
+            FileRecord prev = previous.get(rel);
+            boolean process;
+            if (configChanged || dirty.contains(rel)) {
+                process = true;
+            } else if (!Collections.disjoint(prev.references, changedTypes)) {
+                events.emit(Level.INFO, "INCREMENTAL", "Reprocessing {}: depends on a changed type", rel);
+                process = true;
+            } else {
+                process = prev.outcome == Outcome.TRANSFORMED
+                        && (outputRoot == null || !Files.exists(outputRoot.resolve(rel)));
+            }
+            if (process) {
+                toProcess.add(src);
+                plannedHashes.put(src, hashes.get(src));
+                if (sources.containsKey(src)) {
+                    plannedSources.put(src, sources.get(src));
+                }
+            } else {
+                current.put(rel, prev);
+                skipped++;
+            }
+        }
+        return toProcess;
+    }
+
+    // The hash plan computed for the file, or null if it was not planned or was already taken.
+    public String takeHash(Path src) {
+        return plannedHashes.remove(src);
+    }
+
+    // The content plan read for the file, or null if sources were not kept or it was already taken.
+    public byte[] takeSource(Path src) {
+        return plannedSources.remove(src);
+    }
+
+    // Names are taken before any recipe runs, so they describe the input file.
+    public FileRecord newRecord(CompilationUnit cu, String hash) {
+        FileRecord record = new FileRecord();
+        record.hash = hash;
+        cu.walk(node -> {
+            if (node instanceof TypeDeclaration<?> td) {
+                record.declares.add(td.getNameAsString());
+            } else if (node instanceof ClassOrInterfaceType t) {
+                record.references.add(t.getNameAsString());
+            } else if (node instanceof AnnotationExpr a) {
+                record.references.add(a.getName().getIdentifier());
+            } else if (node instanceof NameExpr n && isTypeLike(n.getNameAsString())) {
+                record.references.add(n.getNameAsString());
+            } else if (node instanceof FieldAccessExpr f && isTypeLike(f.getNameAsString())) {
+                record.references.add(f.getNameAsString());
+            } else if (node instanceof ImportDeclaration i) {
+                Name name = i.getName();
+                record.references.add(name.getIdentifier());
+                // static member imports depend on the declaring type
+                if (i.isStatic() && !i.isAsterisk()) {
+                    name.getQualifier().ifPresent(q -> record.references.add(q.getIdentifier()));
+                }
+            }
+        });
+        cu.getStorage().ifPresent(s -> record.declares.add(stem(s.getPath())));
+        record.references.removeAll(record.declares);
+        return record;
+    }
+
+    // For files that were not parsed: they depend on nothing and declare their file name.
+    public FileRecord newRecord(Path src, String hash) {
+        FileRecord record = new FileRecord();
+        record.hash = hash;
+        record.declares.add(stem(src));
+        return record;
+    }
+
+    // Called once per processed file; files that failed to parse are not recorded and rerun next time.
+    public void record(String rel, FileRecord record) {
+        current.put(rel, record);
+        FileRecord prev = previous.get(rel);
+        if (prev != null && record.outcome != Outcome.TRANSFORMED) {
+            discardOutput(rel, prev);
+        }
+    }
+
+    public int getSkipped() {
+        return skipped;
+    }
+
+    public void save() throws IOException {
+        Snapshot snapshot = new Snapshot();
+        snapshot.version = VERSION;
+        snapshot.configHash = configHash;
+        snapshot.files = new TreeMap<>(current);
+
+        Path parent = file.toAbsolutePath().getParent();
+        Files.createDirectories(parent);
+        Path tmp = Files.createTempFile(parent, file.getFileName().toString(), ".tmp");
+        new ObjectMapper().writeValue(tmp.toFile(), snapshot);
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    // A previously written output that the current run would not produce is stale.
+    private void discardOutput(String rel, FileRecord prev) {
+        if (outputRoot == null || prev.outcome != Outcome.TRANSFORMED) return;
+        try {
+            if (Files.deleteIfExists(outputRoot.resolve(rel))) {
+                events.emit(Level.INFO, "INCREMENTAL", "Removed stale output: {}", rel);
+            }
+        } catch (IOException ex) {
+            events.emit(Level.ERROR, "ERROR", "Could not remove stale output {} - {}", rel, ex.getMessage());
+        }
+    }
+
+    private static boolean isTypeLike(String name) {
+        return !name.isEmpty() && Character.isUpperCase(name.charAt(0));
+    }
+
+    private static String stem(Path src) {
+        String name = src.getFileName().toString();
+        int dot = name.lastIndexOf('.');
+        return dot < 0 ? name : name.substring(0, dot);
+    }
+}
@@ -0,0 +1,625 @@
+package gst.engine.matcher;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiPredicate;
+import java.util.regex.Pattern;
+
+import com.github.javaparser.Range;
+import com.github.javaparser.ast.CompilationUnit;
+import com.github.javaparser.ast.Node;
+import com.github.javaparser.ast.body.ClassOrInterfaceDeclaration;
+import com.github.javaparser.ast.body.MethodDeclaration;
+import com.github.javaparser.ast.body.Parameter;
+import com.github.javaparser.ast.body.VariableDeclarator;
+import com.github.javaparser.ast.expr.BinaryExpr;
+import com.github.javaparser.ast.expr.FieldAccessExpr;
+import com.github.javaparser.ast.expr.MethodCallExpr;
+import com.github.javaparser.ast.expr.NameExpr;
+import com.github.javaparser.ast.expr.ObjectCreationExpr;
+import com.github.javaparser.ast.expr.VariableDeclarationExpr;
+import com.github.javaparser.ast.nodeTypes.NodeWithAnnotations;
+import com.github.javaparser.ast.nodeTypes.NodeWithModifiers;
+import com.github.javaparser.ast.stmt.ForStmt;
+import com.github.javaparser.ast.type.Type;
+import com.github.javaparser.resolution.declarations.ResolvedDeclaration;
+import com.github.javaparser.resolution.declarations.ResolvedReferenceTypeDeclaration;
+import com.github.javaparser.resolution.types.ResolvedReferenceType;
+import com.github.javaparser.resolution.types.ResolvedType;
+import com.github.javaparser.symbolsolver.javaparsermodel.JavaParserFacade;
+
+import gst.api.Match;
+import gst.engine.parser.ParserSession;
+import gst.engine.resolve.ResolutionCache.Resolution;
+import gst.engine.utils.ConcatUtils;
+
+/**
+ * Immutable, pre-compiled form of a {@link Match}.
+ * Regex criteria are compiled once and only the criteria actually set in the
+ * mapping become checks, so matching a node no longer re-reads the raw JSON
+ * fields or calls Pattern.compile. Safe to share between workers.
+ *
+ * Checks run cheapest first: structural tests, then string tests, then
+ * printing the node's source, and symbol resolution last, so the solver only
+ * sees nodes that passed every cheap filter. Within a cost tier the order is
+ * re-sorted by observed rejection rate each time a worker has made another
+ * 4096 evaluations, so the most selective check runs first. Reordering never
+ * changes the outcome, only its cost.
+ */
+public final class CompiledMatch {
+    // Estimated relative cost of one evaluation; tiers are never interleaved.
+    enum Cost {
+        STRUCTURAL(1),
+        STRING(10),
+        SOURCE_TEXT(50),
+        RESOLUTION(1000);
+
+        final int weight;
+
+        Cost(int weight) {
+            this.weight = weight;
+        }
+    }
+
+    private static final long ADAPT_INTERVAL = 4096;
+
+    private final String nodeType;
+    private final List<Check> checks;
+    private final List<Set<String>> requiredTokens;
+    // per worker thread, so counting evaluations writes nothing other workers read
+    private final ThreadLocal<long[]> evaluations = ThreadLocal.withInitial(() -> new long[1]);
+    private volatile Check[] order;
+
+    private CompiledMatch(String nodeType, List<Check> checks, List<Set<String>> requiredTokens) {
+        this.nodeType = nodeType;
+        this.checks = List.copyOf(checks);
+        this.requiredTokens = List.copyOf(requiredTokens);
+        this.order = this.checks.stream()
+                .sorted(Comparator.comparingInt((Check c) -> c.cost.ordinal()))
+                .toArray(Check[]::new);
+    }
+
+    public String nodeType() {
+        return nodeType;
+    }
+
+    /**
+     * Tokens that must occur in a file's raw text for this match to hit any
+     * node in it: every set must have at least one member present. Tokens are
+     * identifiers/keywords, or a single punctuation character. Empty means
+     * the match cannot be decided lexically.
+     */
+    public List<Set<String>> requiredTokens() {
+        return requiredTokens;
+    }
+
+    public boolean matches(Node node, ParserSession session) {
+        return matches(node, new MatchContext(session));
+    }
+
+    public boolean matches(Node node, MatchContext ctx) {
+        // nodeType sanity
+        if (!node.getClass().getSimpleName().equals(nodeType)) {
+            return false;
+        }
+        if (order.length > 1 && ++evaluations.get()[0] % ADAPT_INTERVAL == 0) {
+            reorder();
+        }
+        for (Check check : order) {
+            check.evaluated.increment();
+            if (!check.test.test(node, ctx)) {
+                check.rejected.increment();
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Current evaluation order, e.g. for diagnostics.
+    public List<String> checkOrder() {
+        return Arrays.stream(order).map(c -> c.name).toList();
+    }
+
+    // Expected cost per rejection: cheap, selective checks sort first; tier always dominates.
+    private void reorder() {
+        order = checks.stream()
+                .sorted(Comparator.comparingInt((Check c) -> c.cost.ordinal())
+                        .thenComparingDouble(Check::rank))
+                .toArray(Check[]::new);
+    }
+
+    private static final class Check {
+        final String name;
+        final Cost cost;
+        final BiPredicate<Node, MatchContext> test;
+        final LongAdder evaluated = new LongAdder();
+        final LongAdder rejected = new LongAdder();
+
+        Check(String name, Cost cost, BiPredicate<Node, MatchContext> test) {
+            this.name = name;
+            this.cost = cost;
+            this.test = test;
+        }
+
+        double rank() {
+            long n = evaluated.sum();
+            if (n == 0) return cost.weight;
+            double rejectRate = (double) rejected.sum() / n;
+            return cost.weight / Math.max(rejectRate, 1e-6);
+        }
+
+        @Override
+        public String toString() {
+            return name;
+        }
+    }
+
+    public static CompiledMatch compile(Match m) {
+        List<Check> checks = new ArrayList<>();
+
+        // matchExpr: regex against the node’s source text
+        if (m.matchExpr != null) {
+            Pattern p = Pattern.compile(m.matchExpr);
+            checks.add(new Check("matchExpr", Cost.SOURCE_TEXT, (node, s) -> p.matcher(node.toString()).find()));
+        }
+
+        // requiresImport / forbidsImport
+        if (m.requiresImport != null) {
+            String imp = m.requiresImport;
+            checks.add(new Check("requiresImport", Cost.STRUCTURAL, (node, s) -> node.findCompilationUnit()
+                    .map(cu -> hasImport(cu, imp))
+                    .orElse(false)));
+        }
+        if (m.forbidsImport != null) {
+            String imp = m.forbidsImport;
+            checks.add(new Check("forbidsImport", Cost.STRUCTURAL, (node, s) -> node.findCompilationUnit()
+                    .map(cu -> !hasImport(cu, imp))
+                    .orElse(false)));
+        }
+
+        // requireInitializer (only for VariableDeclarationExpr)
+        if (Boolean.TRUE.equals(m.requireInitializer)) {
+            checks.add(new Check("requireInitializer", Cost.STRUCTURAL, (node, s) ->
+                    !(node instanceof VariableDeclarationExpr vde)
+                            || vde.getVariables().stream().allMatch(v -> v.getInitializer().isPresent())));
+        }
+
+        // fqn (requires symbol solver) – handles method calls too
+        if (m.fqn != null) {
+            String fqn = m.fqn;
+            checks.add(new Check("fqn", Cost.RESOLUTION, (node, s) -> fqn.equals(resolveFqn(node, s))));
+        }
+
+        // typeAny for variables/parameters
+        if (m.typeAny != null) {
+            List<String> typeAny = List.copyOf(m.typeAny);
+            checks.add(new Check("typeAny", Cost.RESOLUTION, (node, s) -> {
+                Type t = declaredType(node);
+                if (t == null) return true;
+                String simple = t.asString();
+                String resolved = resolveQualifiedName(t, s);
+                return typeAny.stream().anyMatch(x -> x.equals(simple) || x.equals(resolved) || simple.endsWith("." + x));
+            }));
+        }
+
+        // simple/resolved `type`
+        if (m.type != null) {
+            String type = m.type;
+            checks.add(new Check("type", Cost.RESOLUTION, (node, s) -> {
+                Type t = declaredType(node);
+                if (t == null) return true;
+                String simple = t.asString();
+                if (simple.equals(type) || simple.endsWith("." + type)) return true;
+                return type.equals(resolveQualifiedName(t, s));
+            }));
+        }
+
+        // methodName
+        if (m.methodName != null) {
+            String methodName = m.methodName;
+            checks.add(new Check("methodName", Cost.STRUCTURAL, (node, s) ->
+                    node instanceof MethodCallExpr mc && mc.getNameAsString().equals(methodName)));
+        }
+
+        // argumentType / expectedParamType are accepted in mappings but not evaluated yet
+
+        // fqnScope (for MethodCallExpr)
+        if (m.fqnScope != null) {
+            String fqnScope = m.fqnScope;
+            checks.add(new Check("fqnScope", Cost.RESOLUTION, (node, s) -> {
+                if (!(node instanceof MethodCallExpr mc && mc.getScope().isPresent())) {
+                    return false;
+                }
+                var scope = mc.getScope().get();
+                return fqnScope.equals(s.resolve("fqnScope", scope, scope.toString(), () -> {
+                    try {
+                        ResolvedType type = JavaParserFacade.get(s.getSession().getTypeSolver()).getType(scope);
+                        return new Resolution(type.describe(), originsOf(type));
+                    } catch (Exception ignore) {
+                        return Resolution.UNRESOLVED;
+                    }
+                }));
+            }));
+        }
+
+        // annotation
+        if (m.annotation != null) {
+            String annotation = m.annotation;
+            checks.add(new Check("annotation", Cost.STRUCTURAL, (node, s) ->
+                    node instanceof NodeWithAnnotations<?> nwa && nwa.isAnnotationPresent(annotation)));
+        }
+
+        // typePattern
+        if (m.typePattern != null) {
+            Pattern p = Pattern.compile(m.typePattern);
+            checks.add(new Check("typePattern", Cost.SOURCE_TEXT, (node, s) -> p.matcher(node.toString()).find()));
+        }
+
+        // requireNoTypeArgs
+        if (Boolean.TRUE.equals(m.requireNoTypeArgs)) {
+            checks.add(new Check("requireNoTypeArgs", Cost.STRUCTURAL, (node, s) -> {
+                if (!(node instanceof VariableDeclarationExpr vde)) return true;
+                var elem = vde.getElementType();
+                if (!elem.isClassOrInterfaceType()) return true;
+                var args = elem.asClassOrInterfaceType().getTypeArguments();
+                return args.isEmpty() || args.get().isEmpty();
+            }));
+        }
+
+        // operator (for BinaryExpr)
+        if (m.operator != null) {
+            String operator = m.operator;
+            checks.add(new Check("operator", Cost.STRUCTURAL, (node, s) ->
+                    node instanceof BinaryExpr be && be.getOperator().asString().equals(operator)));
+        }
+
+        // literalOnly / literalPattern (for BinaryExpr)
+        if (Boolean.TRUE.equals(m.literalOnly)) {
+            checks.add(new Check("literalOnly", Cost.STRING, (node, s) ->
+                    !(node instanceof BinaryExpr be) || ConcatUtils.gatherLiterals(be, new ArrayList<>())));
+        }
+        if (m.literalPattern != null) {
+            Pattern p = Pattern.compile(m.literalPattern);
+            checks.add(new Check("literalPattern", Cost.STRING, (node, s) -> {
+                if (!(node instanceof BinaryExpr be)) return true;
+                List<String> parts = new ArrayList<>();
+                return ConcatUtils.gatherLiterals(be, parts) && p.matcher(String.join("", parts)).find();
+            }));
+        }
+
+        // ForStmt loop patterns
+        if (m.initVarPattern != null) {
+            Pattern p = Pattern.compile(m.initVarPattern);
+            checks.add(new Check("initVarPattern", Cost.STRING, (node, s) -> {
+                if (!(node instanceof ForStmt fs)) return true;
+                var inits = fs.getInitialization();
+                if (inits.size() != 1 || !(inits.get(0) instanceof VariableDeclarationExpr vde)
+                        || vde.getVariables().size() != 1) {
+                    return false;
+                }
+                return p.matcher(vde.getVariables().get(0).getNameAsString()).find();
+            }));
+        }
+        if (m.conditionPattern != null) {
+            Pattern p = Pattern.compile(m.conditionPattern);
+            checks.add(new Check("conditionPattern", Cost.STRING, (node, s) -> {
+                if (!(node instanceof ForStmt fs)) return true;
+                var cmp = fs.getCompare().orElse(null);
+                return cmp != null && p.matcher(cmp.toString()).find();
+            }));
+        }
+        if (m.updatePattern != null) {
+            Pattern p = Pattern.compile(m.updatePattern);
+            checks.add(new Check("updatePattern", Cost.STRING, (node, s) ->
+                    !(node instanceof ForStmt fs)
+                            || fs.getUpdate().stream().anyMatch(u -> p.matcher(u.toString()).find())));
+        }
+        if (m.accessPattern != null) {
+            // scans the whole body text
+            Pattern p = Pattern.compile(m.accessPattern);
+            checks.add(new Check("accessPattern", Cost.SOURCE_TEXT, (node, s) ->
+                    !(node instanceof ForStmt fs) || p.matcher(fs.getBody().toString()).find()));
+        }
+
+        // parentNodeType
+        if (m.parentNodeType != null) {
+            String parentNodeType = m.parentNodeType;
+            checks.add(new Check("parentNodeType", Cost.STRUCTURAL, (node, s) -> node.getParentNode()
+                    .map(p -> p.getClass().getSimpleName().equals(parentNodeType))
+                    .orElse(false)));
+        }
+
+        // namePattern (for declarations and names)
+        if (m.namePattern != null) {
+            Pattern p = Pattern.compile(m.namePattern);
+            checks.add(new Check("namePattern", Cost.STRING, (node, s) -> {
+                String name = declaredName(node);
+                return name != null && p.matcher(name).find();
+            }));
+        }
+
+        // scopePattern (for MethodCallExpr / FieldAccessExpr)
+        if (m.scopePattern != null) {
+            Pattern p = Pattern.compile(m.scopePattern);
+            checks.add(new Check("scopePattern", Cost.STRING, (node, s) -> {
+                String scope = null;
+                if (node instanceof MethodCallExpr mc && mc.getScope().isPresent()) {
+                    scope = mc.getScope().get().toString();
+                } else if (node instanceof FieldAccessExpr fa) {
+                    scope = fa.getScope().toString();
+                }
+                return scope != null && p.matcher(scope).find();
+            }));
+        }
+
+        // hasModifier (for nodes with modifiers)
+        if (m.hasModifier != null) {
+            String modifier = m.hasModifier;
+            checks.add(new Check("hasModifier", Cost.STRUCTURAL, (node, s) ->
+                    node instanceof NodeWithModifiers<?> nw && nw.getModifiers().stream()
+                            .anyMatch(mod -> mod.getKeyword().asString().equalsIgnoreCase(modifier))));
+        }
+
+        // returnTypePattern / paramCount (for MethodDeclaration)
+        if (m.returnTypePattern != null) {
+            Pattern p = Pattern.compile(m.returnTypePattern);
+            checks.add(new Check("returnTypePattern", Cost.STRING, (node, s) ->
+                    !(node instanceof MethodDeclaration md) || p.matcher(md.getType().toString()).find()));
+        }
+        if (m.paramCount != null) {
+            int paramCount = m.paramCount;
+            checks.add(new Check("paramCount", Cost.STRUCTURAL, (node, s) ->
+                    !(node instanceof MethodDeclaration md) || md.getParameters().size() == paramCount));
+        }
+
+        // beforeLine / afterLine
+        if (m.beforeLine != null || m.afterLine != null) {
+            Integer beforeLine = m.beforeLine;
+            Integer afterLine = m.afterLine;
+            checks.add(new Check("lineRange", Cost.STRUCTURAL, (node, s) -> {
+                Optional<Range> r = node.getRange();
+                if (r.isEmpty()) return false;
+                int line = r.get().begin.line;
+                if (beforeLine != null && line >= beforeLine) return false;
+                return afterLine == null || line > afterLine;
+            }));
+        }
+
+        return new CompiledMatch(m.nodeType, checks, requiredTokens(m));
+    }
+
+    // Only criteria that cannot hold without their text in the file contribute a token.
+    private static List<Set<String>> requiredTokens(Match m) {
+        List<Set<String>> tokens = new ArrayList<>();
+        switch (String.valueOf(m.nodeType)) {
+            case "SwitchStmt" -> tokens.add(Set.of("switch"));
+            case "ForStmt" -> tokens.add(Set.of("for"));
+            case "ObjectCreationExpr" -> tokens.add(Set.of("new"));
+            case "ImportDeclaration" -> tokens.add(Set.of("import"));
+            case "ClassOrInterfaceDeclaration" -> tokens.add(Set.of("class", "interface"));
+            default -> { }
+        }
+        if (m.methodName != null) tokens.add(Set.of(m.methodName));
+        if (m.annotation != null) tokens.add(Set.of(simpleName(m.annotation)));
+        if (m.requiresImport != null) tokens.add(Set.of(simpleName(m.requiresImport)));
+        if (m.operator != null && !m.operator.isEmpty()) tokens.add(Set.of(m.operator.substring(0, 1)));
+        if (Boolean.TRUE.equals(m.literalOnly)) tokens.add(Set.of("\""));
+
+        // A declared type is spelled out unless it is inferred: `var`, or for parameters an
+        // implicitly typed lambda, which at least needs its arrow.
+        boolean declaration = "VariableDeclarationExpr".equals(m.nodeType);
+        boolean parameter = "Parameter".equals(m.nodeType);
+        if (declaration || parameter) {
+            for (String t : new String[] {m.type, m.fqn}) {
+                if (t != null) tokens.add(inferable(Set.of(simpleName(t)), parameter));
+            }
+            if (m.typeAny != null) {
+                Set<String> any = new HashSet<>();
+                m.typeAny.forEach(t -> any.add(simpleName(t)));
+                tokens.add(inferable(any, parameter));
+            }
+        }
+        // A method call's fqn may come from an inherited or statically imported member, but a
+        // created type is always named.
+        if ("ObjectCreationExpr".equals(m.nodeType) && m.fqn != null) tokens.add(Set.of(simpleName(m.fqn)));
+
+        for (String regex : new String[] {m.matchExpr, m.typePattern}) {
+            if (regex != null) {
+                regexIdentifiers(regex).forEach(id -> tokens.add(Set.of(id)));
+            }
+        }
+        return tokens;
+    }
+
+    private static Set<String> inferable(Set<String> names, boolean parameter) {
+        Set<String> alternatives = new HashSet<>(names);
+        alternatives.add("var");
+        if (parameter) alternatives.add("-");
+        return Set.copyOf(alternatives);
+    }
+
+    // The identifier the source spells: java.util.List<String> and Foo[] name List and Foo.
+    private static String simpleName(String qualified) {
+        int args = qualified.indexOf('<');
+        String raw = args < 0 ? qualified : qualified.substring(0, args);
+        int dims = raw.indexOf('[');
+        if (dims >= 0) raw = raw.substring(0, dims);
+        raw = raw.trim();
+        return raw.substring(raw.lastIndexOf('.') + 1);
+    }
+
+    /*
+     * Whole identifiers spelled literally in a regex, e.g. "out" and "println" in
+     * System\.out\.println\(. An identifier counts only when literal characters bound
+     * it on both sides, so it cannot be a fragment of a longer one, and only outside
+     * groups, which may be optional. Patterns with alternation or inline flags yield nothing.
+     */
+    private static List<String> regexIdentifiers(String regex) {
+        List<String> ids = new ArrayList<>();
+        if (regex.contains("|") || regex.contains("(?")) {
+            return ids;
+        }
+        StringBuilder literal = new StringBuilder();
+        int depth = 0;
+        int i = 0;
+        while (i <= regex.length()) {
+            char c = i < regex.length() ? regex.charAt(i) : '\0';
+            char next = i + 1 < regex.length() ? regex.charAt(i + 1) : '\0';
+            if (c == '\\' && next != '\0' && !Character.isLetterOrDigit(next)) {
+                literal.append(next);
+                i += 2;
+                continue;
+            }
+            if (c != '\0' && c != '\\' && ".[](){}*+?^$".indexOf(c) < 0) {
+                literal.append(c);
+                i++;
+                continue;
+            }
+            // a quantifier makes the preceding character optional
+            if ((c == '*' || c == '?' || c == '{') && !literal.isEmpty()) {
+                literal.setLength(literal.length() - 1);
+            }
+            if (depth == 0) {
+                boundedIdentifiers(literal, ids);
+            }
+            literal.setLength(0);
+            if (c == '(') depth++;
+            if (c == ')') depth = Math.max(0, depth - 1);
+            i = c == '[' || c == '{' ? skipPast(regex, i, c == '[' ? ']' : '}')
+                    : c == '\\' ? i + 2
+                    : i + 1;
+        }
+        return ids;
+    }
+
+    // Index after the closing character, honouring escapes; a leading ']' in a class is literal.
+    private static int skipPast(String regex, int open, char close) {
+        int i = open + 1;
+        if (close == ']' && i < regex.length() && regex.charAt(i) == '^') i++;
+        if (close == ']' && i < regex.length() && regex.charAt(i) == ']') i++;
+        while (i < regex.length() && regex.charAt(i) != close) {
+            i += regex.charAt(i) == '\\' ? 2 : 1;
+        }
+        return i + 1;
+    }
+
+    private static void boundedIdentifiers(CharSequence literal, List<String> out) {
+        int start = -1;
+        for (int i = 0; i < literal.length(); i++) {
+            boolean part = Character.isJavaIdentifierPart(literal.charAt(i));
+            if (part && start < 0) {
+                start = i;
+            } else if (!part && start >= 0) {
+                if (start > 0) out.add(literal.subSequence(start, i).toString());
+                start = -1;
+            }
+        }
+    }
+
+    private static boolean hasImport(CompilationUnit cu, String name) {
+        return cu.getImports().stream().anyMatch(i -> i.getNameAsString().equals(name));
+    }
+
+    private static Type declaredType(Node node) {
+        if (node instanceof VariableDeclarationExpr vde) return vde.getElementType();
+        if (node instanceof Parameter p) return p.getType();
+        return null;
+    }
+
+    private static String declaredName(Node node) {
+        if (node instanceof VariableDeclarator vd) return vd.getNameAsString();
+        if (node instanceof MethodDeclaration md) return md.getNameAsString();
+        if (node instanceof NameExpr ne) return ne.getNameAsString();
+        if (node instanceof ClassOrInterfaceDeclaration cd) return cd.getNameAsString();
+        return null;
+    }
+
+    private static String resolveQualifiedName(Type t, MatchContext ctx) {
+        return ctx.resolve("type", t, t.asString(), () -> {
+            try {
+                ResolvedReferenceType type = t.resolve().asReferenceType();
+                return new Resolution(type.getQualifiedName(), originsOf(type));
+            } catch (Exception ignored) {
+                return Resolution.UNRESOLVED;
+            }
+        });
+    }
+
+    private static String resolveFqn(Node node, MatchContext ctx) {
+        String text;
+        if (node instanceof MethodCallExpr mc) {
+            text = mc.getNameAsString() + "/" + mc.getArguments().size();
+        } else if (node instanceof ObjectCreationExpr oce) {
+            text = oce.getType().asString();
+        } else if (node instanceof VariableDeclarationExpr vde) {
+            text = vde.getElementType().asString();
+        } else if (node instanceof Parameter p) {
+            text = p.getType().asString();
+        } else {
+            return null;
+        }
+        return ctx.resolve("fqn", node, text, () -> resolveFqnUncached(node, ctx.getSession()));
+    }
+
+    private static Resolution resolveFqnUncached(Node node, ParserSession session) {
+        try {
+            if (node instanceof MethodCallExpr mc) {
+                // resolve the method, then get its declaring type
+                ResolvedReferenceTypeDeclaration declaring = mc.resolve().declaringType();
+                Set<Path> origins = new HashSet<>();
+                addOrigin(declaring, origins);
+                return new Resolution(declaring.getQualifiedName(), origins);
+            }
+            ResolvedType type;
+            if (node instanceof ObjectCreationExpr oce) {
+                type = JavaParserFacade.get(session.getTypeSolver()).getType(oce);
+            } else if (node instanceof VariableDeclarationExpr vde) {
+                type = JavaParserFacade.get(session.getTypeSolver()).getType(vde.getElementType());
+            } else if (node instanceof Parameter p) {
+                type = JavaParserFacade.get(session.getTypeSolver()).getType(p.getType());
+            } else {
+                return Resolution.UNRESOLVED;
+            }
+            return new Resolution(type.describe(), originsOf(type));
+        } catch (Exception ignored) {
+        }
+        return Resolution.UNRESOLVED;
+    }
+
+    // Source files declaring the type and its type arguments; jar and JDK types have none.
+    private static Set<Path> originsOf(ResolvedType type) {
+        Set<Path> origins = new HashSet<>();
+        addOrigins(type, origins);
+        return origins;
+    }
+
+    private static void addOrigins(ResolvedType type, Set<Path> origins) {
+        if (type.isArray()) {
+            addOrigins(type.asArrayType().getComponentType(), origins);
+        } else if (type.isWildcard()) {
+            if (type.asWildcard().isBounded()) {
+                addOrigins(type.asWildcard().getBoundedType(), origins);
+            }
+        } else if (type.isReferenceType()) {
+            ResolvedReferenceType reference = type.asReferenceType();
+            reference.getTypeDeclaration().ifPresent(d -> addOrigin(d, origins));
+            for (ResolvedType argument : reference.typeParametersValues()) {
+                addOrigins(argument, origins);
+            }
+        }
+    }
+
+    private static void addOrigin(ResolvedDeclaration declaration, Set<Path> origins) {
+        declaration.toAst()
+                .flatMap(Node::findCompilationUnit)
+                .flatMap(CompilationUnit::getStorage)
+                .ifPresent(storage -> origins.add(storage.getPath()));
+    }
+}
@@ -0,0 +1,109 @@
+package gst.engine.matcher;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.github.javaparser.ast.Node;
+
+import gst.api.Recipe;
+import gst.api.Step;
+
+/**
+ * Maps AST node classes to the recipe steps that match on them, so a
+ * compilation unit is walked once and every node is routed only to the
+ * steps registered for its type, instead of one findAll per step.
+ * Built once per run; safe to share between workers.
+ */
+public class DispatchIndex {
+    private final List<Class<? extends Node>> slotTypes = new ArrayList<>();
+    private final Map<Step, Integer> slots = new IdentityHashMap<>();
+    // concrete node class -> ascending slots whose nodeType it is an instance of
+    private final Map<Class<?>, int[]> routes = new ConcurrentHashMap<>();
+
+    public DispatchIndex(List<Recipe> recipes) {
+        for (Recipe recipe : recipes) {
+            for (Step step : recipe.steps) {
+                slots.put(step, slotTypes.size());
+                slotTypes.add(NodeMatcher.nodeClass(step.match.nodeType));
+            }
+        }
+    }
+
+    public int slotOf(Step step) {
+        Integer slot = slots.get(step);
+        if (slot == null) {
+            throw new IllegalArgumentException("Step is not part of this index");
+        }
+        return slot;
+    }
+
+    public Walk walk(Node root) {
+        return new Walk(root);
+    }
+
+    private int[] routesFor(Class<?> nodeClass) {
+        return routes.computeIfAbsent(nodeClass, c -> {
+            List<Integer> hits = new ArrayList<>();
+            for (int slot = 0; slot < slotTypes.size(); slot++) {
+                Class<? extends Node> type = slotTypes.get(slot);
+                if (type != null && type.isAssignableFrom(c)) {
+                    hits.add(slot);
+                }
+            }
+            return hits.stream().mapToInt(Integer::intValue).toArray();
+        });
+    }
+
+    /**
+     * Candidates of one file, collected lazily in a single pre-order walk
+     * (the same order findAll produces). Call {@link #invalidate()} after
+     * mutating the tree; the next lookup re-walks for the remaining steps only.
+     * Confined to the worker processing the file.
+     */
+    public class Walk {
+        private final Node root;
+        private List<List<Node>> candidates;
+        private int collectedFrom;
+        private long visited;
+
+        private Walk(Node root) {
+            this.root = root;
+        }
+
+        public List<Node> candidates(int slot) {
+            if (candidates == null || slot < collectedFrom) {
+                collect(slot);
+            }
+            return candidates.get(slot);
+        }
+
+        public void invalidate() {
+            candidates = null;
+        }
+
+        // Nodes passed over by all walks so far, re-walks included.
+        public long getVisited() {
+            return visited;
+        }
+
+        private void collect(int fromSlot) {
+            List<List<Node>> lists = new ArrayList<>(slotTypes.size());
+            for (int i = 0; i < slotTypes.size(); i++) {
+                lists.add(new ArrayList<>());
+            }
+            root.walk(Node.TreeTraversal.PREORDER, node -> {
+                visited++;
+                for (int slot : routesFor(node.getClass())) {
+                    if (slot >= fromSlot) {
+                        lists.get(slot).add(node);
+                    }
+                }
+            });
+            candidates = lists;
+            collectedFrom = fromSlot;
+        }
+    }
+}
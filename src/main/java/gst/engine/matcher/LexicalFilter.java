@@ -0,0 +1,111 @@
+package gst.engine.matcher;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import gst.api.Recipe;
+import gst.api.Step;
+
+/**
+ * Decides from a file's raw bytes whether any step could match in it, so
+ * files no recipe can touch are never parsed. A step is possible only if each
+ * of its {@link CompiledMatch#requiredTokens()} sets has a member somewhere in
+ * the file; comments and string literals count too, which keeps the answer
+ * conservative. One step without tokens disables the filter.
+ *
+ * Assumes an ASCII-compatible source encoding (the parser default is UTF-8).
+ * Files containing unicode escapes are always parsed. Safe to share between workers.
+ */
+public class LexicalFilter {
+    private final List<List<Set<String>>> steps = new ArrayList<>();
+    private final Set<String> identifiers = new HashSet<>();
+    private final boolean[] punctuation = new boolean[128];
+    private final boolean alwaysParse;
+    private int longest;
+
+    public LexicalFilter(List<Recipe> recipes) {
+        boolean unconstrained = false;
+        for (Recipe recipe : recipes) {
+            for (Step step : recipe.steps) {
+                List<Set<String>> tokens = step.compiledMatch.requiredTokens();
+                unconstrained |= tokens.isEmpty();
+                steps.add(tokens);
+                for (Set<String> alternatives : tokens) {
+                    for (String token : alternatives) {
+                        unconstrained |= !register(token);
+                    }
+                }
+            }
+        }
+        this.alwaysParse = unconstrained;
+    }
+
+    public boolean isEnabled() {
+        return !alwaysParse;
+    }
+
+    public boolean mayMatch(byte[] source) {
+        if (alwaysParse) {
+            return true;
+        }
+        Set<String> seenIds = new HashSet<>();
+        boolean[] seenPunct = new boolean[128];
+        int n = source.length;
+        int i = 0;
+        while (i < n) {
+            int b = source[i] & 0xff;
+            if (isIdentifierByte(b)) {
+                int start = i;
+                while (i < n && isIdentifierByte(source[i] & 0xff)) i++;
+                int len = i - start;
+                if (len <= longest) {
+                    String id = new String(source, start, len, StandardCharsets.ISO_8859_1);
+                    if (identifiers.contains(id)) seenIds.add(id);
+                }
+                continue;
+            }
+            if (b == '\\' && i + 1 < n && source[i + 1] == 'u') {
+                return true;
+            }
+            if (b < 128 && punctuation[b]) seenPunct[b] = true;
+            i++;
+        }
+
+        for (List<Set<String>> clauses : steps) {
+            if (clauses.stream().allMatch(alternatives -> alternatives.stream()
+                    .anyMatch(t -> isPunctuation(t) ? seenPunct[t.charAt(0)] : seenIds.contains(t)))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Tokens the byte scan cannot see (empty or non-ASCII) are rejected.
+    private boolean register(String token) {
+        if (token.isEmpty() || !token.chars().allMatch(c -> c < 128)) {
+            return false;
+        }
+        if (isPunctuation(token)) {
+            punctuation[token.charAt(0)] = true;
+        } else {
+            identifiers.add(token);
+            longest = Math.max(longest, token.length());
+        }
+        return true;
+    }
+
+    private static boolean isPunctuation(String token) {
+        char c = token.charAt(0);
+        return token.length() == 1 && c < 128 && !isIdentifierByte(c);
+    }
+
+    // Non-ASCII bytes are treated as identifier parts: they never occur in a token,
+    // so an identifier containing one simply never equals a token.
+    private static boolean isIdentifierByte(int b) {
+        return (b >= 'a' && b <= 'z') || (b >= 'A' && b <= 'Z') || (b >= '0' && b <= '9')
+                || b == '_' || b == '$' || b >= 128;
+    }
+}
@@ -0,0 +1,61 @@
+package gst.engine.matcher;
+
+import java.util.function.Supplier;
+
+import com.github.javaparser.ast.Node;
+
+import gst.engine.parser.ParserSession;
+import gst.engine.resolve.ResolutionCache;
+
+/**
+ * Per-file state handed to {@link CompiledMatch}: the worker's parser session
+ * and the file's view of the persistent resolution cache.
+ * Confined to the worker processing the file.
+ */
+public class MatchContext {
+    private final ParserSession session;
+    private final ResolutionCache.FileView resolutions;
+    private boolean pristine = true;
+    private long resolverCalls;
+    private long resolverNanos;
+
+    public MatchContext(ParserSession session, ResolutionCache.FileView resolutions) {
+        this.session = session;
+        this.resolutions = resolutions;
+    }
+
+    public MatchContext(ParserSession session) {
+        this(session, ResolutionCache.FileView.NONE);
+    }
+
+    public ParserSession getSession() {
+        return session;
+    }
+
+    // Cache entries describe the file as read from disk; once the tree is edited they no longer apply.
+    public void markMutated() {
+        pristine = false;
+    }
+
+    // Symbol-solver work actually done for this file; cache hits do not count.
+    public long getResolverCalls() {
+        return resolverCalls;
+    }
+
+    public long getResolverNanos() {
+        return resolverNanos;
+    }
+
+    String resolve(String kind, Node node, String text, Supplier<ResolutionCache.Resolution> resolver) {
+        Supplier<ResolutionCache.Resolution> timed = () -> {
+            long start = System.nanoTime();
+            try {
+                return resolver.get();
+            } finally {
+                resolverCalls++;
+                resolverNanos += System.nanoTime() - start;
+            }
+        };
+        return pristine ? resolutions.resolve(kind, node, text, timed) : timed.get().value;
+    }
+}
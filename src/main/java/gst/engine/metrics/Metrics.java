@@ -0,0 +1,232 @@
+package gst.engine.metrics;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+/**
+ * Counters and duration histograms for one run, written out at the end as
+ * JSON and in the Prometheus text format.
+ *
+ * Look metrics up once and keep the handle: lookup builds a key string, while
+ * add() and record() on a handle are a LongAdder update, safe from any worker.
+ * On {@link #DISABLED} every lookup returns a shared handle that ignores updates,
+ * and callers should skip System.nanoTime() when {@link #isEnabled()} is false.
+ *
+ * Durations are recorded in nanoseconds and exported in seconds. Histogram
+ * buckets are powers of two from about 1 us to about 69 s.
+ */
+public class Metrics {
+    public static final Metrics DISABLED = new Metrics(false);
+
+    private static final int MIN_BUCKET_SHIFT = 10;
+    private static final int BUCKETS = 27;
+
+    private final boolean enabled;
+    private final Map<String, Counter> counters = new ConcurrentHashMap<>();
+    private final Map<String, Histogram> histograms = new ConcurrentHashMap<>();
+
+    private final Counter noCounter = new Counter("", new String[0]);
+    private final Histogram noHistogram = new Histogram("", new String[0]);
+
+    public Metrics() {
+        this(true);
+    }
+
+    private Metrics(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    // labels alternate name and value: counter("gst_step_matches_total", "recipe", r, "step", "0")
+    public Counter counter(String name, String... labels) {
+        if (!enabled) return noCounter;
+        return counters.computeIfAbsent(key(name, labels), k -> new Counter(name, labels));
+    }
+
+    public Histogram histogram(String name, String... labels) {
+        if (!enabled) return noHistogram;
+        return histograms.computeIfAbsent(key(name, labels), k -> new Histogram(name, labels));
+    }
+
+    public static class Metric {
+        final String name;
+        final String[] labels;
+
+        Metric(String name, String[] labels) {
+            this.name = name;
+            this.labels = labels.clone();
+        }
+    }
+
+    public final class Counter extends Metric {
+        private final LongAdder value = new LongAdder();
+
+        Counter(String name, String[] labels) {
+            super(name, labels);
+        }
+
+        public void add(long n) {
+            if (enabled) value.add(n);
+        }
+
+        public void increment() {
+            add(1);
+        }
+
+        public long get() {
+            return value.sum();
+        }
+    }
+
+    public final class Histogram extends Metric {
+        private final LongAdder count = new LongAdder();
+        private final LongAdder sum = new LongAdder();
+        private final LongAdder[] buckets = new LongAdder[BUCKETS];
+
+        Histogram(String name, String[] labels) {
+            super(name, labels);
+            for (int i = 0; i < BUCKETS; i++) {
+                buckets[i] = new LongAdder();
+            }
+        }
+
+        public void record(long nanos) {
+            if (!enabled) return;
+            count.increment();
+            sum.add(nanos);
+            // bucket i holds values up to 2^(MIN_BUCKET_SHIFT + i) ns; the last one is unbounded
+            int bits = 64 - Long.numberOfLeadingZeros(Math.max(0, nanos - 1));
+            buckets[Math.min(BUCKETS - 1, Math.max(0, bits - MIN_BUCKET_SHIFT))].increment();
+        }
+
+        public long count() {
+            return count.sum();
+        }
+    }
+
+    public void writeJson(Path file) throws IOException {
+        ObjectMapper mapper = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+        ObjectNode root = mapper.createObjectNode();
+        ArrayNode cs = root.putArray("counters");
+        for (Counter c : sorted(counters)) {
+            ObjectNode n = cs.addObject();
+            n.put("name", c.name);
+            labels(n.putObject("labels"), c);
+            if (c.name.endsWith("_seconds_total")) {
+                n.put("value", seconds(c.get()));
+            } else {
+                n.put("value", c.get());
+            }
+        }
+        ArrayNode hs = root.putArray("histograms");
+        for (Histogram h : sorted(histograms)) {
+            ObjectNode n = hs.addObject();
+            n.put("name", h.name);
+            labels(n.putObject("labels"), h);
+            n.put("count", h.count.sum());
+            n.put("sumSeconds", seconds(h.sum.sum()));
+            ArrayNode bs = n.putArray("buckets");
+            for (int i = 0; i < BUCKETS; i++) {
+                long c = h.buckets[i].sum();
+                if (c == 0) continue;
+                ObjectNode b = bs.addObject();
+                b.put("le", i == BUCKETS - 1 ? "+Inf" : Double.toString(bound(i)));
+                b.put("count", c);
+            }
+        }
+        Files.createDirectories(file.toAbsolutePath().getParent());
+        mapper.writeValue(file.toFile(), root);
+    }
+
+    public void writePrometheus(Path file) throws IOException {
+        Files.createDirectories(file.toAbsolutePath().getParent());
+        try (Writer out = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            String typed = null;
+            for (Counter c : sorted(counters)) {
+                if (!c.name.equals(typed)) {
+                    out.write("# TYPE " + c.name + " counter\n");
+                    typed = c.name;
+                }
+                String value = c.name.endsWith("_seconds_total") ? Double.toString(seconds(c.get())) : Long.toString(c.get());
+                out.write(c.name + labelText(c, null) + " " + value + "\n");
+            }
+            for (Histogram h : sorted(histograms)) {
+                if (!h.name.equals(typed)) {
+                    out.write("# TYPE " + h.name + " histogram\n");
+                    typed = h.name;
+                }
+                long cumulative = 0;
+                for (int i = 0; i < BUCKETS; i++) {
+                    cumulative += h.buckets[i].sum();
+                    String le = i == BUCKETS - 1 ? "+Inf" : Double.toString(bound(i));
+                    out.write(h.name + "_bucket" + labelText(h, le) + " " + cumulative + "\n");
+                }
+                out.write(h.name + "_sum" + labelText(h, null) + " " + Double.toString(seconds(h.sum.sum())) + "\n");
+                out.write(h.name + "_count" + labelText(h, null) + " " + h.count.sum() + "\n");
+            }
+        }
+    }
+
+    private static String key(String name, String[] labels) {
+        return labels.length == 0 ? name : name + "\u0000" + String.join("\u0000", labels);
+    }
+
+    // By name, then by labels, so both outputs are stable and a family is contiguous.
+    private static <M extends Metric> List<M> sorted(Map<String, M> metrics) {
+        List<M> list = new ArrayList<>(metrics.values());
+        list.sort((a, b) -> key(a.name, a.labels).compareTo(key(b.name, b.labels)));
+        return list;
+    }
+
+    private static void labels(ObjectNode out, Metric m) {
+        for (int i = 0; i + 1 < m.labels.length; i += 2) {
+            out.put(m.labels[i], m.labels[i + 1]);
+        }
+    }
+
+    private static String labelText(Metric m, String le) {
+        Map<String, String> all = new LinkedHashMap<>();
+        for (int i = 0; i + 1 < m.labels.length; i += 2) {
+            all.put(m.labels[i], m.labels[i + 1]);
+        }
+        if (le != null) {
+            all.put("le", le);
+        }
+        if (all.isEmpty()) {
+            return "";
+        }
+        StringBuilder sb = new StringBuilder("{");
+        all.forEach((k, v) -> {
+            if (sb.length() > 1) sb.append(',');
+            sb.append(k).append("=\"")
+              .append(v.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n"))
+              .append('"');
+        });
+        return sb.append('}').toString();
+    }
+
+    private static double bound(int bucket) {
+        return seconds(1L << (MIN_BUCKET_SHIFT + bucket));
+    }
+
+    private static double seconds(long nanos) {
+        return nanos / 1e9;
+    }
+}
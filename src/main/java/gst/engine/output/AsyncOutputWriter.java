@@ -0,0 +1,116 @@
+package gst.engine.output;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Moves writing off the workers: write() only queues the file, and a single
+ * writer thread hands it to the wrapped writer. The queue is bounded, so when
+ * the disk falls behind, workers block in write() instead of piling up text.
+ *
+ * The first failure on the writer thread, of any kind, is rethrown by the next
+ * write() and by close(); later files are dropped. close() waits until everything queued
+ * has been written.
+ */
+public class AsyncOutputWriter implements OutputWriter {
+    private static final Job END = new Job(null, null, null);
+
+    private final OutputWriter delegate;
+    private final BlockingQueue<Job> queue;
+    private final Thread thread;
+    private volatile Throwable failure;
+
+    private static final class Job {
+        final String relativePath;
+        final String original;
+        final List<Revision> revisions;
+
+        Job(String relativePath, String original, List<Revision> revisions) {
+            this.relativePath = relativePath;
+            this.original = original;
+            this.revisions = revisions;
+        }
+    }
+
+    public AsyncOutputWriter(OutputWriter delegate, int capacity) {
+        this.delegate = delegate;
+        this.queue = new ArrayBlockingQueue<>(Math.max(1, capacity));
+        this.thread = new Thread(this::drain, "gst-writer");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    @Override
+    public boolean wantsRevisionPerRecipe() {
+        return delegate.wantsRevisionPerRecipe();
+    }
+
+    @Override
+    public void write(String relativePath, String original, List<Revision> revisions) throws IOException {
+        checkFailure();
+        put(new Job(relativePath, original, revisions));
+    }
+
+    @Override
+    public String describe() {
+        return delegate.describe();
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            put(END);
+            thread.join();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for the writer");
+        } finally {
+            delegate.close();
+        }
+        checkFailure();
+    }
+
+    private void put(Job job) throws InterruptedIOException {
+        try {
+            queue.put(job);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while queueing output");
+        }
+    }
+
+    private void drain() {
+        while (true) {
+            Job job;
+            try {
+                job = queue.take();
+            } catch (InterruptedException ex) {
+                return;
+            }
+            if (job == END) {
+                return;
+            }
+            if (failure != null) {
+                continue;
+            }
+            try {
+                delegate.write(job.relativePath, job.original, job.revisions);
+            } catch (Throwable ex) {
+                failure = ex;
+            }
+        }
+    }
+
+    private void checkFailure() throws IOException {
+        Throwable ex = failure;
+        if (ex instanceof Error error) {
+            throw error;
+        }
+        if (ex != null) {
+            throw new IOException("Writing output failed", ex);
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package gst.engine.output;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Destination for transformed files. Called from worker threads, once per
+ * changed file; implementations must be safe for concurrent use.
+ */
+public interface OutputWriter extends Closeable {
+
+    // Text of a file after one or more recipes, named in the order they ran.
+    class Revision {
+        public final List<String> recipes;
+        public final String text;
+
+        public Revision(List<String> recipes, String text) {
+            this.recipes = recipes;
+            this.text = text;
+        }
+    }
+
+    /**
+     * True if {@link #write} needs the text after every applied recipe, not
+     * only the final text. The pipeline then prints the unit once per recipe.
+     */
+    default boolean wantsRevisionPerRecipe() {
+        return false;
+    }
+
+    // revisions is never empty; its last entry is the file's final text.
+    void write(String relativePath, String original, List<Revision> revisions) throws IOException;
+
+    default String describe() {
+        return getClass().getSimpleName();
+    }
+}
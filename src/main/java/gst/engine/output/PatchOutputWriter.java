@@ -0,0 +1,140 @@
+package gst.engine.output;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import gst.engine.event.Events;
+import gst.engine.event.Level;
+
+/**
+ * Writes changes as unified diffs instead of full copies. Each file's diff is
+ * computed by the worker that transformed it and written at once to its own
+ * fragment in a scratch directory next to the output. Close concatenates the
+ * fragments of every patch sorted by path, so the output does not depend on
+ * which worker finished first, and removes them. Only the fragment paths stay
+ * in memory.
+ *
+ * In per-recipe mode there is one patch per recipe, holding the change each
+ * recipe made on top of the ones before it; apply them in mapping order.
+ */
+public class PatchOutputWriter implements OutputWriter {
+    public static final String PATCH_FILE = "gst.patch";
+
+    private final Path target;
+    private final boolean perRecipe;
+    private final Events events;
+    private final Path fragments;
+    private final AtomicLong nextFragment = new AtomicLong();
+    // patch file -> file path -> fragment holding that file's diff
+    private final Map<Path, Map<String, Path>> patches = new ConcurrentHashMap<>();
+
+    private PatchOutputWriter(Path target, boolean perRecipe, Path scratchParent, Events events) throws IOException {
+        this.target = target;
+        this.perRecipe = perRecipe;
+        this.events = events;
+        this.fragments = Files.createTempDirectory(scratchParent, ".gst-patch");
+    }
+
+    // Patches left by an earlier run are removed up front, so an unchanged tree leaves none behind.
+    public static PatchOutputWriter single(Path patchFile, Events events) throws IOException {
+        Files.createDirectories(patchFile.toAbsolutePath().getParent());
+        Files.deleteIfExists(patchFile);
+        return new PatchOutputWriter(patchFile, false, patchFile.toAbsolutePath().getParent(), events);
+    }
+
+    // Recipe names must map to distinct patch files, also on case-insensitive file systems.
+    public static PatchOutputWriter perRecipe(Path directory, List<String> recipeNames, Events events) throws IOException {
+        Map<String, String> owners = new HashMap<>();
+        for (String name : recipeNames) {
+            String owner = owners.putIfAbsent(patchName(name).toLowerCase(Locale.ROOT), name);
+            if (owner != null && !owner.equals(name)) {
+                throw new IllegalArgumentException("Recipes '" + owner + "' and '" + name
+                        + "' would both write " + patchName(name) + "; rename one of them");
+            }
+        }
+        Files.createDirectories(directory);
+        for (String name : recipeNames) {
+            Files.deleteIfExists(directory.resolve(patchName(name)));
+        }
+        return new PatchOutputWriter(directory, true, directory, events);
+    }
+
+    @Override
+    public boolean wantsRevisionPerRecipe() {
+        return perRecipe;
+    }
+
+    @Override
+    public void write(String relativePath, String original, List<Revision> revisions) throws IOException {
+        String path = relativePath.replace('\\', '/');
+        if (!perRecipe) {
+            StringBuilder diff = new StringBuilder();
+            UnifiedDiff.append(diff, path, original, revisions.get(revisions.size() - 1).text, UnifiedDiff.DEFAULT_CONTEXT);
+            add(target, path, diff);
+            events.emit(Level.INFO, "WRITE", "Added to patch: {}", path);
+            return;
+        }
+        String before = original;
+        for (Revision revision : revisions) {
+            StringBuilder diff = new StringBuilder();
+            UnifiedDiff.append(diff, path, before, revision.text, UnifiedDiff.DEFAULT_CONTEXT);
+            for (String recipe : revision.recipes) {
+                add(target.resolve(patchName(recipe)), path, diff);
+            }
+            before = revision.text;
+        }
+        events.emit(Level.INFO, "WRITE", "Added to recipe patches: {}", path);
+    }
+
+    @Override
+    public String describe() {
+        return (perRecipe ? "per-recipe patches in " : "patch ") + target;
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            for (Map.Entry<Path, Map<String, Path>> patch : new TreeMap<>(patches).entrySet()) {
+                try (OutputStream out = Files.newOutputStream(patch.getKey())) {
+                    for (Path fragment : patch.getValue().values()) {
+                        Files.copy(fragment, out);
+                    }
+                }
+            }
+        } finally {
+            for (Map<String, Path> patch : patches.values()) {
+                for (Path fragment : patch.values()) {
+                    Files.deleteIfExists(fragment);
+                }
+            }
+            patches.clear();
+            Files.deleteIfExists(fragments);
+        }
+    }
+
+    // A file adds to a patch once, from the one worker that transformed it.
+    private void add(Path patch, String path, CharSequence diff) throws IOException {
+        if (diff.length() == 0) {
+            return;
+        }
+        Path fragment = patches.computeIfAbsent(patch, k -> new ConcurrentSkipListMap<>())
+                .computeIfAbsent(path, k -> fragments.resolve(nextFragment.incrementAndGet() + ".diff"));
+        Files.writeString(fragment, diff, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+    }
+
+    private static String patchName(String recipe) {
+        return recipe.replaceAll("[^A-Za-z0-9._-]", "_") + ".patch";
+    }
+}
@@ -0,0 +1,118 @@
+package gst.engine.output;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import gst.engine.event.Events;
+import gst.engine.event.Level;
+
+/**
+ * Mirrors every changed file under the output root, at its path relative to the input root.
+ * Each directory is created once per run, and text is encoded straight into a reused
+ * direct buffer per thread and written through a FileChannel. With fsync, nothing is
+ * forced while files are written; close() forces every written file and directory once.
+ */
+public class TreeOutputWriter implements OutputWriter {
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final ThreadLocal<ByteBuffer> BUFFERS = ThreadLocal.withInitial(() -> ByteBuffer.allocateDirect(BUFFER_SIZE));
+    private static final ThreadLocal<CharsetEncoder> ENCODERS = ThreadLocal.withInitial(StandardCharsets.UTF_8::newEncoder);
+
+    private final Path outputRoot;
+    private final boolean fsync;
+    private final Events events;
+    private final Set<Path> createdDirs = ConcurrentHashMap.newKeySet();
+    private final Set<Path> written = ConcurrentHashMap.newKeySet();
+
+    public TreeOutputWriter(Path outputRoot) {
+        this(outputRoot, false, Events.CONSOLE);
+    }
+
+    public TreeOutputWriter(Path outputRoot, boolean fsync, Events events) {
+        this.outputRoot = outputRoot;
+        this.fsync = fsync;
+        this.events = events;
+    }
+
+    @Override
+    public void write(String relativePath, String original, List<Revision> revisions) throws IOException {
+        Path outFile = outputRoot.resolve(relativePath);
+        Path dir = outFile.getParent();
+        if (!createdDirs.contains(dir)) {
+            Files.createDirectories(dir);
+            createdDirs.add(dir);
+        }
+        try (FileChannel ch = FileChannel.open(outFile, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            encode(revisions.get(revisions.size() - 1).text, ch);
+        }
+        if (fsync) {
+            written.add(outFile);
+        }
+        events.emit(Level.INFO, "WRITE", "Wrote transformed file: {}", outFile);
+    }
+
+    @Override
+    public String describe() {
+        return "tree " + outputRoot;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (!fsync) {
+            return;
+        }
+        for (Path file : written) {
+            try (FileChannel ch = FileChannel.open(file, StandardOpenOption.WRITE)) {
+                ch.force(true);
+            }
+        }
+        for (Path dir : createdDirs) {
+            // makes the new directory entries durable; not supported on every platform
+            try (FileChannel ch = FileChannel.open(dir, StandardOpenOption.READ)) {
+                ch.force(true);
+            } catch (IOException ex) {
+                break;
+            }
+        }
+        events.emit(Level.INFO, "WRITE", "Synced {} files to disk", written.size());
+    }
+
+    // UTF-8, failing on malformed text like Files.writeString.
+    private static void encode(String text, FileChannel ch) throws IOException {
+        ByteBuffer buf = BUFFERS.get();
+        CharsetEncoder encoder = ENCODERS.get().reset();
+        CharBuffer in = CharBuffer.wrap(text);
+        buf.clear();
+        CoderResult result;
+        do {
+            result = encoder.encode(in, buf, true);
+            if (result.isError()) {
+                result.throwException();
+            }
+            drain(buf, ch);
+        } while (result.isOverflow());
+        do {
+            result = encoder.flush(buf);
+            drain(buf, ch);
+        } while (result.isOverflow());
+    }
+
+    private static void drain(ByteBuffer buf, FileChannel ch) throws IOException {
+        buf.flip();
+        while (buf.hasRemaining()) {
+            ch.write(buf);
+        }
+        buf.clear();
+    }
+}
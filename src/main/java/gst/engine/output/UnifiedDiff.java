@@ -0,0 +1,246 @@
+package gst.engine.output;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Line-based unified diff (the format read by patch and git apply).
+ * Uses Myers' O(ND) algorithm in its linear-space form, so memory stays
+ * proportional to the file size even when a pretty-printed file differs on
+ * most lines. Lines keep their '\r', and a missing final newline is reported
+ * with the usual "\ No newline at end of file" marker.
+ */
+public final class UnifiedDiff {
+    public static final int DEFAULT_CONTEXT = 3;
+
+    private static final char EQUAL = ' ';
+    private static final char DELETE = '-';
+    private static final char INSERT = '+';
+    private static final String NO_EOL = "\\ No newline at end of file\n";
+
+    private UnifiedDiff() {
+    }
+
+    /** Appends the diff of one file to out; appends nothing when the texts are equal. */
+    public static void append(StringBuilder out, String path, String original, String revised, int context) {
+        if (original.equals(revised)) {
+            return;
+        }
+        Lines a = new Lines(original);
+        Lines b = new Lines(revised);
+        Map<String, Integer> ids = new HashMap<>();
+        int[] x = a.ids(ids);
+        int[] y = b.ids(ids);
+
+        boolean[] deleted = new boolean[x.length];
+        boolean[] inserted = new boolean[y.length];
+        new Myers(x, y, deleted, inserted).compare(0, x.length, 0, y.length);
+
+        // Edit script as parallel arrays: op and the line index it refers to on its side.
+        int total = x.length + y.length;
+        char[] ops = new char[total];
+        int[] oldLine = new int[total];
+        int[] newLine = new int[total];
+        int n = 0;
+        for (int i = 0, j = 0; i < x.length || j < y.length; n++) {
+            oldLine[n] = i;
+            newLine[n] = j;
+            if (i < x.length && deleted[i]) {
+                ops[n] = DELETE;
+                i++;
+            } else if (j < y.length && inserted[j]) {
+                ops[n] = INSERT;
+                j++;
+            } else {
+                ops[n] = EQUAL;
+                i++;
+                j++;
+            }
+        }
+
+        out.append("--- a/").append(path).append('\n');
+        out.append("+++ b/").append(path).append('\n');
+        int k = 0;
+        while (k < n) {
+            if (ops[k] == EQUAL) {
+                k++;
+                continue;
+            }
+            int start = Math.max(0, k - context);
+            int end = k;
+            // extend while the next change is close enough to share context
+            while (true) {
+                while (end < n && ops[end] != EQUAL) end++;
+                int next = end;
+                while (next < n && ops[next] == EQUAL) next++;
+                if (next < n && next - end <= 2 * context) {
+                    end = next;
+                } else {
+                    end = Math.min(n, end + context);
+                    break;
+                }
+            }
+            appendHunk(out, a, b, ops, oldLine, newLine, start, end);
+            k = end;
+        }
+    }
+
+    private static void appendHunk(StringBuilder out, Lines a, Lines b, char[] ops,
+                                   int[] oldLine, int[] newLine, int start, int end) {
+        int oldCount = 0;
+        int newCount = 0;
+        for (int k = start; k < end; k++) {
+            if (ops[k] != INSERT) oldCount++;
+            if (ops[k] != DELETE) newCount++;
+        }
+        // An empty range is addressed by the line before it.
+        int oldStart = oldCount == 0 ? oldLine[start] : oldLine[start] + 1;
+        int newStart = newCount == 0 ? newLine[start] : newLine[start] + 1;
+        out.append("@@ -").append(oldStart).append(',').append(oldCount)
+                .append(" +").append(newStart).append(',').append(newCount).append(" @@\n");
+
+        for (int k = start; k < end; k++) {
+            Lines side = ops[k] == INSERT ? b : a;
+            int line = ops[k] == INSERT ? newLine[k] : oldLine[k];
+            out.append(ops[k]).append(side.get(line)).append('\n');
+            if (ops[k] == EQUAL) {
+                // equal lines share their newline state except at the very end of both files
+                if (line == a.size() - 1 && a.missingFinalNewline) out.append(NO_EOL);
+            } else if (line == side.size() - 1 && side.missingFinalNewline) {
+                out.append(NO_EOL);
+            }
+        }
+    }
+
+    private static final class Lines {
+        final List<String> lines = new ArrayList<>();
+        final boolean missingFinalNewline;
+
+        Lines(String text) {
+            int from = 0;
+            int nl;
+            while ((nl = text.indexOf('\n', from)) >= 0) {
+                lines.add(text.substring(from, nl));
+                from = nl + 1;
+            }
+            missingFinalNewline = from < text.length();
+            if (missingFinalNewline) {
+                lines.add(text.substring(from));
+            }
+        }
+
+        int size() {
+            return lines.size();
+        }
+
+        String get(int i) {
+            return lines.get(i);
+        }
+
+        // A last line without newline never equals the same text with one.
+        int[] ids(Map<String, Integer> ids) {
+            int[] out = new int[lines.size()];
+            for (int i = 0; i < out.length; i++) {
+                String key = i == out.length - 1 && missingFinalNewline ? lines.get(i) + "\n<no-eol>" : lines.get(i);
+                out[i] = ids.computeIfAbsent(key, s -> ids.size());
+            }
+            return out;
+        }
+    }
+
+    // Divide and conquer on the middle snake, as in Myers (1986), section 4b.
+    private static final class Myers {
+        private final int[] a;
+        private final int[] b;
+        private final boolean[] deleted;
+        private final boolean[] inserted;
+        private final int[] fd;
+        private final int[] bd;
+        private final int offset;
+
+        Myers(int[] a, int[] b, boolean[] deleted, boolean[] inserted) {
+            this.a = a;
+            this.b = b;
+            this.deleted = deleted;
+            this.inserted = inserted;
+            this.offset = b.length + 1;
+            this.fd = new int[a.length + b.length + 3];
+            this.bd = new int[a.length + b.length + 3];
+        }
+
+        void compare(int xoff, int xlim, int yoff, int ylim) {
+            while (xoff < xlim && yoff < ylim && a[xoff] == b[yoff]) {
+                xoff++;
+                yoff++;
+            }
+            while (xlim > xoff && ylim > yoff && a[xlim - 1] == b[ylim - 1]) {
+                xlim--;
+                ylim--;
+            }
+            if (xoff == xlim) {
+                for (int j = yoff; j < ylim; j++) inserted[j] = true;
+            } else if (yoff == ylim) {
+                for (int i = xoff; i < xlim; i++) deleted[i] = true;
+            } else {
+                long mid = middleSnake(xoff, xlim, yoff, ylim);
+                int xmid = (int) (mid >>> 32);
+                int ymid = (int) mid;
+                compare(xoff, xmid, yoff, ymid);
+                compare(xmid, xlim, ymid, ylim);
+            }
+        }
+
+        // Returns a point (x << 32 | y) on an optimal path, strictly between the corners.
+        private long middleSnake(int xoff, int xlim, int yoff, int ylim) {
+            int dmin = xoff - ylim;
+            int dmax = xlim - yoff;
+            int fmid = xoff - yoff;
+            int bmid = xlim - ylim;
+            int fmin = fmid;
+            int fmax = fmid;
+            int bmin = bmid;
+            int bmax = bmid;
+            boolean odd = ((fmid - bmid) & 1) != 0;
+            fd[offset + fmid] = xoff;
+            bd[offset + bmid] = xlim;
+
+            while (true) {
+                if (fmin > dmin) fd[offset + --fmin - 1] = -1; else ++fmin;
+                if (fmax < dmax) fd[offset + ++fmax + 1] = -1; else --fmax;
+                for (int d = fmax; d >= fmin; d -= 2) {
+                    int lo = fd[offset + d - 1];
+                    int hi = fd[offset + d + 1];
+                    int x = lo >= hi ? lo + 1 : hi;
+                    int y = x - d;
+                    while (x < xlim && y < ylim && a[x] == b[y]) {
+                        x++;
+                        y++;
+                    }
+                    fd[offset + d] = x;
+                    if (odd && bmin <= d && d <= bmax && bd[offset + d] <= x) {
+                        return ((long) x << 32) | y;
+                    }
+                }
+
+                if (bmin > dmin) bd[offset + --bmin - 1] = Integer.MAX_VALUE; else ++bmin;
+                if (bmax < dmax) bd[offset + ++bmax + 1] = Integer.MAX_VALUE; else --bmax;
+                for (int d = bmax; d >= bmin; d -= 2) {
+                    int lo = bd[offset + d - 1];
+                    int hi = bd[offset + d + 1];
+                    int x = lo < hi ? lo : hi - 1;
+                    int y = x - d;
+                    while (x > xoff && y > yoff && a[x - 1] == b[y - 1]) {
+                        x--;
+                        y--;
+                    }
+                    bd[offset + d] = x;
+                    if (!odd && fmin <= d && d <= fmax && x <= fd[offset + d]) {
+                        return ((long) x << 32) | y;
+                    }
+                }
+            }
+        }
+    }
+}
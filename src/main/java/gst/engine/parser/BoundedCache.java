@@ -0,0 +1,234 @@
+package gst.engine.parser;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.github.javaparser.resolution.cache.Cache;
+import com.github.javaparser.resolution.cache.CacheStats;
+
+/**
+ * A thread-safe, size-bounded LRU cache for the symbol solver's caches.
+ * Keys are spread over lock stripes, each an access-ordered map holding its
+ * share of the limit, so workers contend only when they hit the same stripe
+ * and recency is kept per stripe rather than globally.
+ *
+ * Caches built with the same {@link Counters} add their hits, misses and
+ * evictions to it, so the caches of all sessions of a pool report together.
+ */
+public class BoundedCache<K, V> implements Cache<K, V> {
+    private static final int MAX_STRIPES = 16;
+    // smaller stripes would evict by stripe imbalance more than by recency
+    private static final long MIN_STRIPE_ENTRIES = 64;
+
+    private final Stripe<K, V>[] stripes;
+    private final Counters counters;
+
+    // Hit, miss and eviction counts, shared by the caches built with them.
+    public static final class Counters {
+        private final LongAdder hits = new LongAdder();
+        private final LongAdder misses = new LongAdder();
+        private final LongAdder evictions = new LongAdder();
+
+        public CacheStats stats() {
+            return new Stats(hits.sum(), misses.sum(), evictions.sum());
+        }
+    }
+
+    public BoundedCache(long maxEntries) {
+        this(maxEntries, new Counters());
+    }
+
+    @SuppressWarnings("unchecked")
+    public BoundedCache(long maxEntries, Counters counters) {
+        if (maxEntries < 1) {
+            throw new IllegalArgumentException("maxEntries must be >= 1, got " + maxEntries);
+        }
+        int count = (int) Math.max(1, Math.min(MAX_STRIPES, maxEntries / MIN_STRIPE_ENTRIES));
+        this.counters = counters;
+        this.stripes = (Stripe<K, V>[]) new Stripe<?, ?>[count];
+        for (int i = 0; i < count; i++) {
+            // the first maxEntries % count stripes take one entry more
+            long capacity = maxEntries / count + (i < maxEntries % count ? 1 : 0);
+            stripes[i] = new Stripe<>(capacity, counters.evictions);
+        }
+    }
+
+    @Override
+    public void put(K key, V value) {
+        Stripe<K, V> stripe = stripeFor(key);
+        synchronized (stripe) {
+            stripe.put(key, value);
+        }
+    }
+
+    @Override
+    public Optional<V> get(K key) {
+        Stripe<K, V> stripe = stripeFor(key);
+        V value;
+        synchronized (stripe) {
+            value = stripe.get(key);
+        }
+        (value != null ? counters.hits : counters.misses).increment();
+        return Optional.ofNullable(value);
+    }
+
+    @Override
+    public void remove(K key) {
+        Stripe<K, V> stripe = stripeFor(key);
+        synchronized (stripe) {
+            stripe.remove(key);
+        }
+    }
+
+    @Override
+    public void removeAll() {
+        for (Stripe<K, V> stripe : stripes) {
+            synchronized (stripe) {
+                stripe.clear();
+            }
+        }
+    }
+
+    @Override
+    public boolean contains(K key) {
+        Stripe<K, V> stripe = stripeFor(key);
+        synchronized (stripe) {
+            return stripe.containsKey(key);
+        }
+    }
+
+    @Override
+    public long size() {
+        long size = 0;
+        for (Stripe<K, V> stripe : stripes) {
+            synchronized (stripe) {
+                size += stripe.size();
+            }
+        }
+        return size;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    // Counts of every cache sharing this one's Counters.
+    @Override
+    public CacheStats stats() {
+        return counters.stats();
+    }
+
+    private Stripe<K, V> stripeFor(K key) {
+        int h = key.hashCode();
+        return stripes[Math.floorMod(h ^ (h >>> 16), stripes.length)];
+    }
+
+    private static final class Stripe<K, V> extends LinkedHashMap<K, V> {
+        private static final long serialVersionUID = 1L;
+
+        private final long capacity;
+        private final LongAdder evictions;
+
+        Stripe(long capacity, LongAdder evictions) {
+            super(16, 0.75f, true);
+            this.capacity = capacity;
+            this.evictions = evictions;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+            if (size() > capacity) {
+                evictions.increment();
+                return true;
+            }
+            return false;
+        }
+    }
+
+    // Hit, miss and eviction counts; the cache does no loading of its own, so load figures are zero.
+    private static final class Stats implements CacheStats {
+        private final long hits;
+        private final long misses;
+        private final long evictions;
+
+        Stats(long hits, long misses, long evictions) {
+            this.hits = hits;
+            this.misses = misses;
+            this.evictions = evictions;
+        }
+
+        @Override
+        public long requestCount() {
+            return hits + misses;
+        }
+
+        @Override
+        public long hitCount() {
+            return hits;
+        }
+
+        @Override
+        public double hitRate() {
+            return requestCount() == 0 ? 1.0 : (double) hits / requestCount();
+        }
+
+        @Override
+        public long missCount() {
+            return misses;
+        }
+
+        @Override
+        public double missRate() {
+            return requestCount() == 0 ? 0.0 : (double) misses / requestCount();
+        }
+
+        @Override
+        public long loadCount() {
+            return 0;
+        }
+
+        @Override
+        public long loadSuccessCount() {
+            return 0;
+        }
+
+        @Override
+        public long loadExceptionCount() {
+            return 0;
+        }
+
+        @Override
+        public double loadExceptionRate() {
+            return 0.0;
+        }
+
+        @Override
+        public long totalLoadTime() {
+            return 0;
+        }
+
+        @Override
+        public double averageLoadPenalty() {
+            return 0.0;
+        }
+
+        @Override
+        public long evictionCount() {
+            return evictions;
+        }
+
+        @Override
+        public CacheStats minus(CacheStats other) {
+            return new Stats(Math.max(0, hits - other.hitCount()), Math.max(0, misses - other.missCount()),
+                    Math.max(0, evictions - other.evictionCount()));
+        }
+
+        @Override
+        public CacheStats plus(CacheStats other) {
+            return new Stats(hits + other.hitCount(), misses + other.missCount(), evictions + other.evictionCount());
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package gst.engine.parser;
+
+import java.nio.file.Path;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.github.javaparser.resolution.cache.CacheStats;
+
+import gst.engine.resolve.TypeIndex;
+
+/**
+ * Per-run pool of {@link ParserSession}s.
+ * A session is confined to the thread that acquired it until it is released,
+ * so several pipelines (and several workers of one pipeline) can parse and
+ * resolve at the same time without touching StaticJavaParser.
+ *
+ * With a source cache limit, the parsed dependency files the sessions' source
+ * solvers keep are bounded for the pool as a whole: each session has its own
+ * LRU caches holding an equal share of the limit. The parsed units themselves
+ * are not shared, because the symbol solver stores resolved types on their
+ * nodes as it goes, in maps that are not thread-safe, and a type resolved by
+ * one session's solver must not be read by another. All sessions resolve
+ * classpath types through one TypeIndex, which is read-only.
+ */
+public class ParserPool {
+    private final Path sourceRoot;
+    private final int maxSessions;
+    private final long typeCacheLimit;
+    private final long sourceCacheShare;
+    private final BoundedCache.Counters sourceCacheCounters = new BoundedCache.Counters();
+    private final TypeIndex classpath;
+    private final BlockingQueue<ParserSession> idle = new LinkedBlockingQueue<>();
+    private final AtomicInteger created = new AtomicInteger();
+
+    public ParserPool(Path sourceRoot, int maxSessions) {
+        this(sourceRoot, maxSessions, ParserSession.UNBOUNDED);
+    }
+
+    public ParserPool(Path sourceRoot, int maxSessions, long typeCacheLimit) {
+        this(sourceRoot, maxSessions, typeCacheLimit, 0);
+    }
+
+    // sourceCacheLimit: parsed files (and directories) kept by all sessions together; 0 leaves each
+    // session's caches to the solver's defaults.
+    public ParserPool(Path sourceRoot, int maxSessions, long typeCacheLimit, long sourceCacheLimit) {
+        this(sourceRoot, maxSessions, typeCacheLimit, sourceCacheLimit, null);
+    }
+
+    // classpath: jar types every session can resolve, or null for the JDK and source root only.
+    public ParserPool(Path sourceRoot, int maxSessions, long typeCacheLimit, long sourceCacheLimit, TypeIndex classpath) {
+        if (maxSessions < 1) {
+            throw new IllegalArgumentException("maxSessions must be >= 1, got " + maxSessions);
+        }
+        this.sourceRoot = sourceRoot;
+        this.maxSessions = maxSessions;
+        this.typeCacheLimit = typeCacheLimit;
+        this.sourceCacheShare = sourceCacheLimit > 0 ? Math.max(1, sourceCacheLimit / maxSessions) : 0;
+        this.classpath = classpath;
+    }
+
+    // Returns an idle session, creating one lazily while under the limit, otherwise waits for a release.
+    public ParserSession acquire() {
+        ParserSession session = idle.poll();
+        if (session != null) {
+            return session;
+        }
+        if (created.incrementAndGet() <= maxSessions) {
+            session = sourceCacheShare > 0
+                    ? new ParserSession(sourceRoot, typeCacheLimit,
+                            new BoundedCache<>(sourceCacheShare, sourceCacheCounters),
+                            new BoundedCache<>(sourceCacheShare, sourceCacheCounters))
+                    : new ParserSession(sourceRoot, typeCacheLimit);
+            if (classpath != null) {
+                session.addClasspath(classpath);
+            }
+            return session;
+        }
+        created.decrementAndGet();
+        try {
+            return idle.take();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for a parser session", ex);
+        }
+    }
+
+    public void release(ParserSession session) {
+        idle.offer(session);
+    }
+
+    // Hits, misses and evictions of all sessions' source caches, or null without a source cache limit.
+    public CacheStats getSourceCacheStats() {
+        return sourceCacheShare > 0 ? sourceCacheCounters.stats() : null;
+    }
+}
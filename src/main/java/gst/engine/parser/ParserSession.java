@@ -0,0 +1,117 @@
+package gst.engine.parser;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Optional;
+
+import com.github.javaparser.JavaParser;
+import com.github.javaparser.ParseProblemException;
+import com.github.javaparser.ParseResult;
+import com.github.javaparser.ParserConfiguration;
+import com.github.javaparser.ast.CompilationUnit;
+import com.github.javaparser.ast.expr.Expression;
+import com.github.javaparser.ast.stmt.Statement;
+import com.github.javaparser.ast.type.Type;
+import com.github.javaparser.resolution.cache.Cache;
+import com.github.javaparser.symbolsolver.JavaSymbolSolver;
+import com.github.javaparser.symbolsolver.resolution.typesolvers.CombinedTypeSolver;
+import com.github.javaparser.symbolsolver.resolution.typesolvers.JavaParserTypeSolver;
+import com.github.javaparser.symbolsolver.resolution.typesolvers.ReflectionTypeSolver;
+
+import gst.engine.resolve.IndexedJarTypeSolver;
+import gst.engine.resolve.TypeIndex;
+
+/**
+ * Parser and symbol-solver state for one worker.
+ * The type solvers cache parsed declarations and JavaParser reuses its
+ * token manager between calls, so a session must only be used by the
+ * thread that currently holds it (see {@link ParserPool}).
+ */
+public class ParserSession {
+    public static final long UNBOUNDED = -1;
+
+    private final CombinedTypeSolver typeSolver;
+    private final JavaSymbolSolver symbolSolver;
+    private final JavaParser parser;
+
+    public ParserSession(Path sourceRoot) {
+        this(sourceRoot, UNBOUNDED);
+    }
+
+    // typeCacheLimit bounds each of the source solver's caches (parsed files, directories, found types).
+    public ParserSession(Path sourceRoot, long typeCacheLimit) {
+        this(sourceRoot, typeCacheLimit, null, null);
+    }
+
+    /**
+     * With non-null caches, the source solver keeps the files and directories it parses
+     * in them, e.g. caches bounded by this session's share of a pool-wide limit (see
+     * {@link ParserPool}). They must belong to this session alone: the solver stores
+     * resolved types on the parsed nodes, which are not thread-safe. Types found are
+     * cached per session too, bounded by typeCacheLimit.
+     */
+    public ParserSession(Path sourceRoot, long typeCacheLimit,
+                         Cache<Path, Optional<CompilationUnit>> fileCache,
+                         Cache<Path, List<CompilationUnit>> directoryCache) {
+        JavaParserTypeSolver sourceSolver;
+        if (fileCache != null && directoryCache != null) {
+            sourceSolver = new JavaParserTypeSolver(sourceRoot, new JavaParser(new ParserConfiguration()), fileCache, directoryCache,
+                    new BoundedCache<>(typeCacheLimit == UNBOUNDED ? Long.MAX_VALUE : typeCacheLimit));
+        } else if (typeCacheLimit == UNBOUNDED) {
+            sourceSolver = new JavaParserTypeSolver(sourceRoot.toFile());
+        } else {
+            sourceSolver = new JavaParserTypeSolver(sourceRoot, new ParserConfiguration(), typeCacheLimit);
+        }
+        this.typeSolver = new CombinedTypeSolver(new ReflectionTypeSolver(), sourceSolver);
+        this.symbolSolver = new JavaSymbolSolver(typeSolver);
+        this.parser = new JavaParser(new ParserConfiguration().setSymbolResolver(symbolSolver));
+    }
+
+    // The parse* methods mirror their StaticJavaParser counterparts, including ParseProblemException on failure.
+    public CompilationUnit parse(Path file) throws IOException {
+        return unwrap(parser.parse(file));
+    }
+
+    // Parses source already read into memory and records `file` as its storage, as parse(Path) would.
+    public CompilationUnit parse(Path file, byte[] content) {
+        Charset charset = parser.getParserConfiguration().getCharacterEncoding();
+        CompilationUnit cu = unwrap(parser.parse(new ByteArrayInputStream(content), charset));
+        cu.setStorage(file, charset);
+        return cu;
+    }
+
+    public Type parseType(String type) {
+        return unwrap(parser.parseType(type));
+    }
+
+    public Statement parseStatement(String statement) {
+        return unwrap(parser.parseStatement(statement));
+    }
+
+    public <T extends Expression> T parseExpression(String expression) {
+        return unwrap(parser.<T>parseExpression(expression));
+    }
+
+    // Resolves the indexed jars' types after the JDK and the source root; call before the first parse.
+    public void addClasspath(TypeIndex classpath) {
+        typeSolver.add(new IndexedJarTypeSolver(classpath));
+    }
+
+    public CombinedTypeSolver getTypeSolver() {
+        return typeSolver;
+    }
+
+    public JavaSymbolSolver getSymbolSolver() {
+        return symbolSolver;
+    }
+
+    private static <T> T unwrap(ParseResult<T> result) {
+        if (!result.isSuccessful() || result.getResult().isEmpty()) {
+            throw new ParseProblemException(result.getProblems());
+        }
+        return result.getResult().get();
+    }
+}
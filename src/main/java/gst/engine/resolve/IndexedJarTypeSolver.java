@@ -0,0 +1,73 @@
+package gst.engine.resolve;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+
+import com.github.javaparser.resolution.TypeSolver;
+import com.github.javaparser.resolution.declarations.ResolvedReferenceTypeDeclaration;
+import com.github.javaparser.resolution.model.SymbolReference;
+import com.github.javaparser.symbolsolver.resolution.typesolvers.JarTypeSolver;
+
+/**
+ * Solves classpath types through a {@link TypeIndex}. A name the index does not
+ * know is unsolved at the cost of a binary search, which is what most lookups
+ * are: the symbol solver tries every candidate name of a simple type in turn.
+ * A known name is solved by a JarTypeSolver for the one jar that declares it,
+ * opened on first use, which reads class files with Javassist rather than
+ * loading them. hasType is answered by the index alone, so asking whether a
+ * name exists never opens a jar.
+ *
+ * Like the other solvers of a session, confined to the thread holding it; the
+ * index itself may be shared.
+ */
+public class IndexedJarTypeSolver implements TypeSolver {
+    private final TypeIndex index;
+    private final Map<Path, JarTypeSolver> jars = new HashMap<>();
+    private TypeSolver parent;
+
+    public IndexedJarTypeSolver(TypeIndex index) {
+        this.index = index;
+    }
+
+    @Override
+    public TypeSolver getParent() {
+        return parent;
+    }
+
+    @Override
+    public void setParent(TypeSolver parent) {
+        if (parent == this) {
+            throw new IllegalStateException("The parent of this TypeSolver cannot be itself.");
+        }
+        this.parent = parent;
+    }
+
+    @Override
+    public SymbolReference<ResolvedReferenceTypeDeclaration> tryToSolveType(String name) {
+        Path jar = index.jarOf(name);
+        if (jar == null) {
+            return SymbolReference.unsolved();
+        }
+        // JarTypeSolver keys classes by binary name with every '$' turned into '.'
+        return jars.computeIfAbsent(jar, this::open).tryToSolveType(name.replace('$', '.'));
+    }
+
+    @Override
+    public boolean hasType(String name) {
+        return index.contains(name);
+    }
+
+    private JarTypeSolver open(Path jar) {
+        try {
+            JarTypeSolver solver = new JarTypeSolver(jar);
+            // so types the jar refers to are looked up from the session's root solver
+            solver.setParent(this);
+            return solver;
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Cannot read indexed jar " + jar, ex);
+        }
+    }
+}
@@ -0,0 +1,288 @@
+package gst.engine.resolve;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+import com.github.javaparser.Range;
+import com.github.javaparser.ast.Node;
+
+import gst.engine.event.Events;
+import gst.engine.event.Level;
+import gst.engine.utils.ContentHash;
+
+/**
+ * Symbol-resolution results persisted across runs.
+ * Entries are grouped by the SHA-256 of the source file they were computed in
+ * and keyed by (kind, node range, expression text), so a rerun over an
+ * unchanged file answers fqn/fqnScope/type lookups without the solver.
+ *
+ * Each answer records the source files of the declarations it resolved to,
+ * type arguments included, with their content hashes; it is only reused
+ * while all of them are unchanged. Jar types are covered by the classpath
+ * fingerprint in the header instead: a cache from another classpath is
+ * discarded on open. Unresolvable lookups are remembered for the run but not
+ * saved, since a source file added later could make them resolve; for the
+ * same reason a new type that would shadow a cached answer is not noticed.
+ *
+ * The cache file is memory-mapped and only the groups of the files a run
+ * actually visits are decoded. Files not seen during a run are dropped when
+ * the cache is saved.
+ */
+public class ResolutionCache {
+    private static final int MAGIC = 0x47535452; // "GSTR"
+    private static final int VERSION = 3;
+
+    private final Path file;
+    private final String classpath;
+    // where each file's group starts in the mapped cache file
+    private final Map<String, Integer> stored = new HashMap<>();
+    private ByteBuffer mapped;
+    private final Map<String, Map<String, Entry>> byFile = new ConcurrentHashMap<>();
+    // current content hash per origin file, "" when it is gone; origins do not change during a run
+    private final Map<String, String> originHashes = new ConcurrentHashMap<>();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    /**
+     * A resolver's answer, null when unresolved, and the source files of the
+     * declarations it names. Jar and JDK declarations have no source file.
+     */
+    public static final class Resolution {
+        public static final Resolution UNRESOLVED = new Resolution(null, Set.of());
+
+        public final String value;
+        public final Set<Path> origins;
+
+        public Resolution(String value, Set<Path> origins) {
+            this.value = value;
+            this.origins = Set.copyOf(origins);
+        }
+    }
+
+    // An answer with the hash of each origin file when it was resolved, keyed by absolute path.
+    private static final class Entry {
+        final String value;
+        final Map<String, String> origins;
+
+        Entry(String value, Map<String, String> origins) {
+            this.value = value;
+            this.origins = origins;
+        }
+    }
+
+    private ResolutionCache(Path file, String classpath) {
+        this.file = file;
+        this.classpath = classpath;
+    }
+
+    // classpath is the fingerprint of the jars resolved against, see TypeIndex.fingerprint.
+    public static ResolutionCache open(Path file, String classpath, Events events) throws IOException {
+        ResolutionCache cache = new ResolutionCache(file, classpath);
+        if (Files.isRegularFile(file)) {
+            cache.read(events);
+        }
+        return cache;
+    }
+
+    public FileView forFile(String contentHash) {
+        return new FileView(this, byFile.computeIfAbsent(contentHash, this::decode));
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    // Layout: MAGIC, VERSION, classpath, fileCount, then per file: hash, entryCount,
+    // (key, value, originCount, (path, hash)*)*.
+    public void save() throws IOException {
+        Path parent = file.toAbsolutePath().getParent();
+        Files.createDirectories(parent);
+        Path tmp = Files.createTempFile(parent, file.getFileName().toString(), ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            writeString(out, classpath);
+            Map<String, Map<String, Entry>> live = new TreeMap<>();
+            byFile.forEach((hash, entries) -> {
+                Map<String, Entry> resolved = new TreeMap<>();
+                entries.forEach((key, entry) -> {
+                    if (entry.value != null) resolved.put(key, entry);
+                });
+                if (!resolved.isEmpty()) live.put(hash, resolved);
+            });
+            out.writeInt(live.size());
+            for (Map.Entry<String, Map<String, Entry>> f : live.entrySet()) {
+                writeString(out, f.getKey());
+                out.writeInt(f.getValue().size());
+                for (Map.Entry<String, Entry> e : f.getValue().entrySet()) {
+                    writeString(out, e.getKey());
+                    writeString(out, e.getValue().value);
+                    out.writeInt(e.getValue().origins.size());
+                    for (Map.Entry<String, String> o : e.getValue().origins.entrySet()) {
+                        writeString(out, o.getKey());
+                        writeString(out, o.getValue());
+                    }
+                }
+            }
+        }
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    // Maps the file and notes where each group starts; entries are decoded by forFile.
+    private void read(Events events) throws IOException {
+        MappedByteBuffer buf;
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+            buf = ch.map(FileChannel.MapMode.READ_ONLY, 0, ch.size());
+        }
+        try {
+            if (buf.remaining() < 8 || buf.getInt() != MAGIC || buf.getInt() != VERSION) {
+                events.emit(Level.WARN, "WARNING", "Ignoring unreadable resolution cache: {}", file);
+                return;
+            }
+            if (!readString(buf).equals(classpath)) {
+                events.emit(Level.INFO, "CACHE", "Classpath changed, discarding resolution cache: {}", file);
+                return;
+            }
+            int files = buf.getInt();
+            for (int i = 0; i < files; i++) {
+                String hash = readString(buf);
+                stored.put(hash, buf.position());
+                int n = buf.getInt();
+                for (int j = 0; j < n; j++) {
+                    skipString(buf);
+                    skipString(buf);
+                    int origins = buf.getInt();
+                    for (int k = 0; k < 2 * origins; k++) {
+                        skipString(buf);
+                    }
+                }
+            }
+            mapped = buf;
+        } catch (RuntimeException ex) {
+            // truncated or foreign file: start empty rather than failing the run
+            stored.clear();
+            events.emit(Level.WARN, "WARNING", "Ignoring corrupt resolution cache: {} - {}", file, ex);
+        }
+    }
+
+    private Map<String, Entry> decode(String contentHash) {
+        Map<String, Entry> entries = new ConcurrentHashMap<>();
+        Integer offset = stored.get(contentHash);
+        if (offset == null) {
+            return entries;
+        }
+        ByteBuffer buf = mapped.duplicate().position(offset);
+        int n = buf.getInt();
+        for (int i = 0; i < n; i++) {
+            String key = readString(buf);
+            String value = readString(buf);
+            int count = buf.getInt();
+            Map<String, String> origins = new TreeMap<>();
+            for (int k = 0; k < count; k++) {
+                origins.put(readString(buf), readString(buf));
+            }
+            entries.put(key, new Entry(value, origins));
+        }
+        return entries;
+    }
+
+    private Entry newEntry(Resolution resolution) {
+        Map<String, String> origins = new TreeMap<>();
+        for (Path origin : resolution.origins) {
+            String path = origin.toAbsolutePath().normalize().toString();
+            origins.put(path, originHash(path));
+        }
+        return new Entry(resolution.value, origins);
+    }
+
+    private boolean isCurrent(Entry entry) {
+        for (Map.Entry<String, String> o : entry.origins.entrySet()) {
+            if (!originHash(o.getKey()).equals(o.getValue())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private String originHash(String path) {
+        return originHashes.computeIfAbsent(path, p -> {
+            try {
+                return ContentHash.sha256(Files.readAllBytes(Paths.get(p)));
+            } catch (IOException ex) {
+                return "";
+            }
+        });
+    }
+
+    private static void writeString(DataOutputStream out, String s) throws IOException {
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(ByteBuffer buf) {
+        byte[] bytes = new byte[buf.getInt()];
+        buf.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void skipString(ByteBuffer buf) {
+        int length = buf.getInt();
+        buf.position(buf.position() + length);
+    }
+
+    /**
+     * Cached lookups for one version of one source file.
+     */
+    public static final class FileView {
+        public static final FileView NONE = new FileView(null, null);
+
+        private final ResolutionCache cache;
+        private final Map<String, Entry> entries;
+
+        private FileView(ResolutionCache cache, Map<String, Entry> entries) {
+            this.cache = cache;
+            this.entries = entries;
+        }
+
+        // Returns the cached answer for this node while its origins are unchanged, or runs the resolver and
+        // remembers its answer (null = unresolved).
+        public String resolve(String kind, Node node, String text, Supplier<Resolution> resolver) {
+            if (entries == null || node.getRange().isEmpty()) {
+                return resolver.get().value;
+            }
+            Range r = node.getRange().get();
+            String key = kind + '@' + r.begin.line + ':' + r.begin.column + '-' + r.end.line + ':' + r.end.column + '|' + text;
+            Entry cached = entries.get(key);
+            if (cached != null && cache.isCurrent(cached)) {
+                cache.hits.increment();
+                return cached.value;
+            }
+            cache.misses.increment();
+            Resolution resolution = resolver.get();
+            entries.put(key, cache.newEntry(resolution));
+            return resolution.value;
+        }
+    }
+}
@@ -0,0 +1,371 @@
+package gst.engine.resolve;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import gst.engine.event.Events;
+import gst.engine.event.Level;
+
+/**
+ * Which jar of a classpath declares each type, keyed by canonical name
+ * (java.util.Map.Entry) and read from the class files without loading them.
+ * Only names are kept: members and supertypes come from the JarTypeSolver
+ * that {@link IndexedJarTypeSolver} opens for the one jar, so the index only
+ * has to answer whether a name exists and where.
+ *
+ * Built once by {@link #build} and memory-mapped by {@link #open}, which
+ * rebuilds it when a jar's path, size or modification time differs from when
+ * it was built. Nested class names come from the InnerClasses attribute, so a
+ * '$' that is part of a simple name is kept. Anonymous and local classes, and
+ * the classes nested in them, are left out; a type in several jars is taken
+ * from the first, as the class loader would. Lookups read the mapping with
+ * absolute gets only, so one index serves every worker.
+ *
+ * Layout (big-endian): magic, version, classpath fingerprint, string table
+ * (count, offsets, UTF-8 blob), jars, then type records sorted by the UTF-8
+ * bytes of their name (name, jar). Strings are table indices.
+ */
+public class TypeIndex {
+    private static final int MAGIC = 0x47535449; // "GSTI"
+    private static final int VERSION = 2;
+    private static final int RECORD_INTS = 2;
+
+    private final ByteBuffer buf;
+    private final int stringCount;
+    private final int stringOffsets;
+    private final int stringBlob;
+    private final int blobLength;
+    private final Path[] jars;
+    private final int typeCount;
+    private final int records;
+
+    private TypeIndex(ByteBuffer buf) {
+        this.buf = buf;
+        int pos = 8;
+        pos += 4 + buf.getInt(pos); // fingerprint
+        stringCount = buf.getInt(pos);
+        stringOffsets = pos + 4;
+        pos = stringOffsets + 4 * stringCount;
+        blobLength = buf.getInt(pos);
+        stringBlob = pos + 4;
+        pos = stringBlob + blobLength;
+        jars = new Path[buf.getInt(pos)];
+        pos += 4;
+        for (int i = 0; i < jars.length; i++, pos += 4) {
+            jars[i] = Paths.get(string(buf.getInt(pos)));
+        }
+        typeCount = buf.getInt(pos);
+        records = pos + 4;
+    }
+
+    /**
+     * Maps the index at indexFile, first building it if it is missing, unreadable or
+     * was built from a different classpath.
+     */
+    public static TypeIndex open(Path indexFile, List<Path> classpath, Events events) throws IOException {
+        String fingerprint = fingerprint(classpath);
+        if (Files.isRegularFile(indexFile)) {
+            TypeIndex index = map(indexFile, fingerprint, events);
+            if (index != null) {
+                events.emit(Level.INFO, "TYPES", "Type index: {} types from {} jars ({})",
+                        index.size(), classpath.size(), indexFile);
+                return index;
+            }
+        }
+        build(classpath, indexFile, events);
+        TypeIndex index = map(indexFile, fingerprint, events);
+        if (index == null) {
+            throw new IOException("Type index just written is unreadable: " + indexFile);
+        }
+        return index;
+    }
+
+    // Reads every class file of the jars and writes the index to indexFile atomically.
+    public static void build(List<Path> classpath, Path indexFile, Events events) throws IOException {
+        long start = System.nanoTime();
+        Map<String, Path> types = new HashMap<>();
+        for (Path jar : classpath) {
+            try (ZipFile zip = new ZipFile(jar.toFile())) {
+                Enumeration<? extends ZipEntry> entries = zip.entries();
+                while (entries.hasMoreElements()) {
+                    ZipEntry entry = entries.nextElement();
+                    String name = entry.getName();
+                    if (entry.isDirectory() || !name.endsWith(".class") || name.startsWith("META-INF/")
+                            || name.endsWith("module-info.class") || name.endsWith("package-info.class")) {
+                        continue;
+                    }
+                    String type;
+                    try (InputStream in = zip.getInputStream(entry)) {
+                        type = readClass(in.readAllBytes());
+                    } catch (IOException | RuntimeException ex) {
+                        events.emit(Level.WARN, "WARNING", "Skipping unreadable class {} in {}: {}", name, jar, ex.toString());
+                        continue;
+                    }
+                    if (type != null) {
+                        types.putIfAbsent(type, jar);
+                    }
+                }
+            }
+        }
+        write(indexFile, fingerprint(classpath), classpath, types);
+        events.emit(Level.INFO, "TYPES", "Indexed {} types in {} ms -> {}",
+                types.size(), (System.nanoTime() - start) / 1_000_000, indexFile);
+    }
+
+    public int size() {
+        return typeCount;
+    }
+
+    public boolean contains(String canonicalName) {
+        return find(canonicalName) >= 0;
+    }
+
+    // Jar declaring the type, or null when no jar of the classpath declares it.
+    public Path jarOf(String canonicalName) {
+        int i = find(canonicalName);
+        return i < 0 ? null : jars[buf.getInt(records + 4 * RECORD_INTS * i + 4)];
+    }
+
+    // Binary search over the records, which are sorted by the UTF-8 bytes of their names; probes compare in place.
+    private int find(String name) {
+        byte[] key = name.getBytes(StandardCharsets.UTF_8);
+        int lo = 0;
+        int hi = typeCount - 1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            int cmp = compare(buf.getInt(records + 4 * RECORD_INTS * mid), key);
+            if (cmp < 0) {
+                lo = mid + 1;
+            } else if (cmp > 0) {
+                hi = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -1;
+    }
+
+    // Unsigned byte order of string index against key.
+    private int compare(int index, byte[] key) {
+        int from = stringBlob + buf.getInt(stringOffsets + 4 * index);
+        int length = (index + 1 < stringCount ? buf.getInt(stringOffsets + 4 * (index + 1)) : blobLength)
+                - (from - stringBlob);
+        int n = Math.min(length, key.length);
+        for (int i = 0; i < n; i++) {
+            int cmp = Integer.compare(buf.get(from + i) & 0xff, key[i] & 0xff);
+            if (cmp != 0) {
+                return cmp;
+            }
+        }
+        return Integer.compare(length, key.length);
+    }
+
+    private String string(int index) {
+        if (index < 0) {
+            return null;
+        }
+        int from = buf.getInt(stringOffsets + 4 * index);
+        int to = index + 1 < stringCount ? buf.getInt(stringOffsets + 4 * (index + 1)) : blobLength;
+        byte[] utf8 = new byte[to - from];
+        buf.get(stringBlob + from, utf8);
+        return new String(utf8, StandardCharsets.UTF_8);
+    }
+
+    // null when the file is not an index of this version and classpath
+    private static TypeIndex map(Path indexFile, String fingerprint, Events events) throws IOException {
+        ByteBuffer buf;
+        try (FileChannel ch = FileChannel.open(indexFile, StandardOpenOption.READ)) {
+            buf = ch.map(FileChannel.MapMode.READ_ONLY, 0, ch.size());
+        }
+        try {
+            if (buf.remaining() < 12 || buf.getInt(0) != MAGIC || buf.getInt(4) != VERSION) {
+                events.emit(Level.WARN, "WARNING", "Rebuilding unreadable type index: {}", indexFile);
+                return null;
+            }
+            byte[] stored = new byte[buf.getInt(8)];
+            buf.get(12, stored);
+            if (!new String(stored, StandardCharsets.UTF_8).equals(fingerprint)) {
+                events.emit(Level.INFO, "TYPES", "Classpath changed, rebuilding type index: {}", indexFile);
+                return null;
+            }
+            return new TypeIndex(buf);
+        } catch (RuntimeException ex) {
+            events.emit(Level.WARN, "WARNING", "Rebuilding corrupt type index: {} - {}", indexFile, ex);
+            return null;
+        }
+    }
+
+    // Path, size and modification time of each jar, in classpath order.
+    public static String fingerprint(List<Path> classpath) throws IOException {
+        StringBuilder sb = new StringBuilder();
+        for (Path jar : classpath) {
+            sb.append(jar.toAbsolutePath().normalize()).append('|')
+              .append(Files.size(jar)).append('|')
+              .append(Files.getLastModifiedTime(jar).toMillis()).append('\n');
+        }
+        return sb.toString();
+    }
+
+    private static void write(Path indexFile, String fingerprint, List<Path> classpath, Map<String, Path> types) throws IOException {
+        Map<String, Integer> strings = new LinkedHashMap<>();
+        List<Integer> jarIndices = new ArrayList<>();
+        for (Path jar : classpath) {
+            jarIndices.add(intern(strings, jar.toAbsolutePath().normalize().toString()));
+        }
+        Map<Path, Integer> jarSlots = new LinkedHashMap<>();
+        for (int i = 0; i < classpath.size(); i++) {
+            jarSlots.putIfAbsent(classpath.get(i), i);
+        }
+
+        ByteArrayOutputStream recordBytes = new ByteArrayOutputStream();
+        DataOutputStream rec = new DataOutputStream(recordBytes);
+        List<String> sorted = new ArrayList<>(types.keySet());
+        sorted.sort((a, b) -> Arrays.compareUnsigned(a.getBytes(StandardCharsets.UTF_8), b.getBytes(StandardCharsets.UTF_8)));
+        for (String name : sorted) {
+            rec.writeInt(intern(strings, name));
+            rec.writeInt(jarSlots.get(types.get(name)));
+        }
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(recordBytes.size() + (1 << 16));
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        byte[] fp = fingerprint.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(fp.length);
+        out.write(fp);
+        ByteArrayOutputStream blob = new ByteArrayOutputStream();
+        out.writeInt(strings.size());
+        for (String s : strings.keySet()) {
+            out.writeInt(blob.size());
+            blob.writeBytes(s.getBytes(StandardCharsets.UTF_8));
+        }
+        out.writeInt(blob.size());
+        blob.writeTo(out);
+        out.writeInt(jarIndices.size());
+        for (int j : jarIndices) out.writeInt(j);
+        out.writeInt(types.size());
+        recordBytes.writeTo(out);
+        out.flush();
+
+        Path parent = indexFile.toAbsolutePath().getParent();
+        Files.createDirectories(parent);
+        Path tmp = Files.createTempFile(parent, indexFile.getFileName().toString(), ".tmp");
+        try {
+            Files.write(tmp, bytes.toByteArray());
+            Files.move(tmp, indexFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    private static int intern(Map<String, Integer> strings, String s) {
+        return strings.computeIfAbsent(s, k -> strings.size());
+    }
+
+    // Canonical name of the class a class file declares; null for anonymous and local classes and their members.
+    static String readClass(byte[] bytes) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes));
+        if (in.readInt() != 0xCAFEBABE) {
+            throw new IOException("Not a class file");
+        }
+        in.readUnsignedShort(); // minor
+        in.readUnsignedShort(); // major
+        int count = in.readUnsignedShort();
+        String[] utf8 = new String[count];
+        int[] classNames = new int[count];
+        for (int i = 1; i < count; i++) {
+            int tag = in.readUnsignedByte();
+            switch (tag) {
+                case 1 -> utf8[i] = in.readUTF();
+                case 7 -> classNames[i] = in.readUnsignedShort();
+                case 8, 16, 19, 20 -> in.skipNBytes(2);
+                case 15 -> in.skipNBytes(3);
+                case 3, 4, 9, 10, 11, 12, 17, 18 -> in.skipNBytes(4);
+                case 5, 6 -> {
+                    in.skipNBytes(8);
+                    i++; // takes two slots
+                }
+                default -> throw new IOException("Bad constant pool tag " + tag);
+            }
+        }
+        in.readUnsignedShort(); // access
+        String internalName = utf8[classNames[in.readUnsignedShort()]];
+        in.readUnsignedShort(); // superclass
+        in.skipNBytes(2L * in.readUnsignedShort()); // interfaces
+        for (int members = 0; members < 2; members++) { // fields, then methods
+            int n = in.readUnsignedShort();
+            for (int i = 0; i < n; i++) {
+                in.skipNBytes(6);
+                skipAttributes(in);
+            }
+        }
+        // inner class -> {outer class or null, simple name or null}
+        Map<String, String[]> nesting = new HashMap<>();
+        int n = in.readUnsignedShort();
+        for (int i = 0; i < n; i++) {
+            String name = utf8[in.readUnsignedShort()];
+            int length = in.readInt();
+            if (!"InnerClasses".equals(name)) {
+                in.skipNBytes(length);
+                continue;
+            }
+            int classes = in.readUnsignedShort();
+            for (int k = 0; k < classes; k++) {
+                int inner = in.readUnsignedShort();
+                int outer = in.readUnsignedShort();
+                int simpleName = in.readUnsignedShort();
+                in.readUnsignedShort(); // access
+                nesting.put(utf8[classNames[inner]], new String[] {
+                        outer == 0 ? null : utf8[classNames[outer]], simpleName == 0 ? null : utf8[simpleName]});
+            }
+        }
+        return canonical(internalName, nesting);
+    }
+
+    private static void skipAttributes(DataInputStream in) throws IOException {
+        int n = in.readUnsignedShort();
+        for (int i = 0; i < n; i++) {
+            in.skipNBytes(2);
+            in.skipNBytes(in.readInt());
+        }
+    }
+
+    // Only the separators InnerClasses names become '.'; a class without an outer class or simple name cannot be named from source.
+    private static String canonical(String internalName, Map<String, String[]> nesting) {
+        StringBuilder suffix = new StringBuilder();
+        String name = internalName;
+        for (int depth = 0; nesting.containsKey(name); depth++) {
+            String[] entry = nesting.get(name);
+            if (entry[0] == null || entry[1] == null) {
+                return null;
+            }
+            if (depth > nesting.size()) {
+                throw new IllegalStateException("Cyclic InnerClasses entries in " + internalName);
+            }
+            suffix.insert(0, '.' + entry[1]);
+            name = entry[0];
+        }
+        return name.replace('/', '.') + suffix;
+    }
+}
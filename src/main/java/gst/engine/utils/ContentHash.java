@@ -0,0 +1,22 @@
+package gst.engine.utils;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * Stable content fingerprints for source files and mappings.
+ */
+public class ContentHash {
+
+    /**
+     * Hex-encoded SHA-256 of the given bytes.
+     */
+    public static String sha256(byte[] content) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(content));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package gst.engine.validator;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.StringJoiner;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.github.javaparser.ast.CompilationUnit;
+import com.github.javaparser.ast.Node;
+import com.github.javaparser.resolution.declarations.ResolvedMethodDeclaration;
+import com.github.javaparser.resolution.declarations.ResolvedReferenceTypeDeclaration;
+import com.github.javaparser.resolution.types.ResolvedReferenceType;
+
+/**
+ * Erased method signatures ("name(java.util.List,int)") reachable from a type,
+ * keyed by qualified type name and shared by all files of a run. A hierarchy
+ * such as AbstractMap is walked once; after that, checking a method against
+ * it is a set lookup. Safe for concurrent workers.
+ *
+ * Types declared in the unit being validated are never cached, since recipes
+ * may change them; they are walked each time and reuse the cached sets of
+ * their own ancestors.
+ */
+public class OverrideIndex {
+    // signatures declared by the type itself
+    private final Map<String, Set<String>> declared = new ConcurrentHashMap<>();
+    // signatures declared by the type or any of its ancestors
+    private final Map<String, Set<String>> inherited = new ConcurrentHashMap<>();
+
+    // Whether method has the erased signature of a method of some ancestor of its declaring type.
+    public boolean overridesAncestor(ResolvedMethodDeclaration method, CompilationUnit cu) {
+        String signature;
+        List<ResolvedReferenceType> ancestors;
+        try {
+            signature = signature(method);
+            ancestors = method.declaringType().getAncestors();
+        } catch (Exception e) {
+            return false;
+        }
+        for (ResolvedReferenceType ancestor : ancestors) {
+            ResolvedReferenceTypeDeclaration type;
+            try {
+                type = ancestor.getTypeDeclaration().orElse(null);
+            } catch (Exception e) {
+                continue;
+            }
+            if (type != null && inherited(type, cu).contains(signature)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private Set<String> inherited(ResolvedReferenceTypeDeclaration type, CompilationUnit cu) {
+        boolean local = isDeclaredIn(type, cu);
+        Set<String> cached = local ? null : inherited.get(type.getQualifiedName());
+        if (cached != null) {
+            return cached;
+        }
+        Set<String> signatures = new HashSet<>(declared(type, cu));
+        List<ResolvedReferenceType> ancestors;
+        try {
+            ancestors = type.getAllAncestors();
+        } catch (Exception e) {
+            ancestors = List.of();
+        }
+        for (ResolvedReferenceType ancestor : ancestors) {
+            try {
+                ancestor.getTypeDeclaration().ifPresent(t -> signatures.addAll(declared(t, cu)));
+            } catch (Exception e) {
+            }
+        }
+        Set<String> result = Set.copyOf(signatures);
+        if (!local) {
+            inherited.putIfAbsent(type.getQualifiedName(), result);
+        }
+        return result;
+    }
+
+    private Set<String> declared(ResolvedReferenceTypeDeclaration type, CompilationUnit cu) {
+        boolean local = isDeclaredIn(type, cu);
+        Set<String> cached = local ? null : declared.get(type.getQualifiedName());
+        if (cached != null) {
+            return cached;
+        }
+        Set<String> signatures = new HashSet<>();
+        try {
+            for (ResolvedMethodDeclaration m : type.getDeclaredMethods()) {
+                try {
+                    signatures.add(signature(m));
+                } catch (Exception e) {
+                }
+            }
+        } catch (Exception e) {
+        }
+        Set<String> result = Set.copyOf(signatures);
+        if (!local) {
+            declared.putIfAbsent(type.getQualifiedName(), result);
+        }
+        return result;
+    }
+
+    private static boolean isDeclaredIn(ResolvedReferenceTypeDeclaration type, CompilationUnit cu) {
+        return type.toAst().flatMap(Node::findCompilationUnit).orElse(null) == cu;
+    }
+
+    private static String signature(ResolvedMethodDeclaration m) {
+        StringJoiner params = new StringJoiner(",", m.getName() + "(", ")");
+        for (int i = 0; i < m.getNumberOfParams(); i++) {
+            params.add(m.getParam(i).getType().erasure().describe());
+        }
+        return params.toString();
+    }
+}
@@ -1,6 +1,5 @@
 package gst.engine.validator;
 
-import java.util.ArrayList;
 import java.util.List;
 
 import com.github.javaparser.ast.CompilationUnit;
@@ -8,53 +7,50 @@ import com.github.javaparser.ast.Node;
 import com.github.javaparser.ast.expr.MethodCallExpr;
 import com.github.javaparser.ast.expr.NameExpr;
 import com.github.javaparser.resolution.declarations.ResolvedMethodDeclaration;
-import com.github.javaparser.symbolsolver.JavaSymbolSolver;
 
 import gst.engine.TxContext;
 
 public class TypeCompatibilityRule implements ValidationRule {
     @Override
-    public List<ValidationError> apply(
+    public Class<? extends Node> nodeType() {
+        return MethodCallExpr.class;
+    }
+
+    @Override
+    public void check(
+            Node node,
             CompilationUnit cu,
+            String filePath,
             TxContext context,
-            JavaSymbolSolver solver
+            List<ValidationError> errors
     ) {
-        List<ValidationError> errors = new ArrayList<>();
-
-        String filePath = cu.getStorage()
-                            .map(s -> s.getPath().toString())
-                            .orElse("<unknown>");
-
-        for (MethodCallExpr mc : cu.findAll(MethodCallExpr.class)) {
-            // resolve method signature
-            ResolvedMethodDeclaration rmd;
-            try {
-                rmd = mc.resolve();
-            } catch (Exception e) {
-                continue;
-            }
+        MethodCallExpr mc = (MethodCallExpr) node;
+        // resolve method signature
+        ResolvedMethodDeclaration rmd;
+        try {
+            rmd = mc.resolve();
+        } catch (Exception e) {
+            return;
+        }
 
-            for (int i = 0; i < mc.getArguments().size(); i++) {
-                var arg = mc.getArgument(i);
-                if (!(arg instanceof NameExpr ne)) continue;
+        for (int i = 0; i < mc.getArguments().size(); i++) {
+            var arg = mc.getArgument(i);
+            if (!(arg instanceof NameExpr ne)) continue;
 
-                String varName = ne.getNameAsString();
-                if (!context.hasVarChanged(varName)) continue;
+            String varName = ne.getNameAsString();
+            if (!context.hasVarChanged(cu, varName)) continue;
 
-                String newType = context.getVarType(varName).orElse(null);
-                // expected param type from signature
-                String expectedType = rmd.getParam(i).getType().describe();
+            String newType = context.getVarType(cu, varName).orElse(null);
+            // expected param type from signature
+            String expectedType = rmd.getParam(i).getType().describe();
 
-                if (newType != null && !newType.equals(expectedType)) {
-                    String msg = String.format(
-                        "Arg '%s' was changed to %s but method expects %s",
-                        varName, newType, expectedType
-                    );
-                    errors.add(new ValidationError(filePath, (Node)mc, msg));
-                }
+            if (newType != null && !newType.equals(expectedType)) {
+                String msg = String.format(
+                    "Arg '%s' was changed to %s but method expects %s",
+                    varName, newType, expectedType
+                );
+                errors.add(new ValidationError(filePath, (Node)mc, msg));
             }
         }
-
-        return errors;
     }
 }
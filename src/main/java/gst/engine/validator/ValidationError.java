@@ -1,5 +1,8 @@
 package gst.engine.validator;
 
+import java.lang.ref.WeakReference;
+import java.util.Objects;
+
 import com.github.javaparser.Range;
 import com.github.javaparser.ast.Node;
 
@@ -7,11 +10,37 @@ public class ValidationError {
     private final String filePath;
     private final Range location;
     private final String message;
+    // Only for nodes without a range, e.g. ones a recipe created; weak so that recorded
+    // rollback errors do not keep the unit alive.
+    private final WeakReference<Node> unplaced;
 
     public ValidationError(String filePath, Node node, String message) {
         this.filePath = filePath;
         this.location = node.getRange().orElse(null);
         this.message  = message;
+        this.unplaced = location == null ? new WeakReference<>(node) : null;
+    }
+
+    // Value equality, so errors present before and after a recipe can be told apart from new ones.
+    // Without a range only the same node makes the same error.
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof ValidationError other)) return false;
+        return Objects.equals(filePath, other.filePath)
+            && Objects.equals(location, other.location)
+            && Objects.equals(message, other.message)
+            && (location != null || sameNode(other));
+    }
+
+    private boolean sameNode(ValidationError other) {
+        Node node = unplaced.get();
+        return node != null && node == other.unplaced.get();
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(filePath, location, message);
     }
 
     @Override
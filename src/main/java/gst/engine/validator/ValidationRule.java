@@ -1,15 +1,37 @@
 package gst.engine.validator;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import com.github.javaparser.ast.CompilationUnit;
-import gst.engine.TxContext;
-import com.github.javaparser.symbolsolver.JavaSymbolSolver;
+import com.github.javaparser.ast.Node;
 
-import java.util.List;
+import gst.engine.TxContext;
 
 public interface ValidationRule {
-    List<ValidationError> apply(
+    // Node type the rule inspects; Validator hands it every such node in scope, in document order.
+    Class<? extends Node> nodeType();
+
+    // Runs on the worker that owns the unit, so it may use that worker's symbol solver. Must not modify the AST.
+    void check(Node node, CompilationUnit cu, String filePath, TxContext context, List<ValidationError> errors);
+
+    default List<ValidationError> apply(
+        CompilationUnit cu,
+        ValidationScope scope,
+        TxContext context
+    ) {
+        List<ValidationError> errors = new ArrayList<>();
+        String filePath = Validator.filePath(cu);
+        for (Node node : scope.findAll(nodeType())) {
+            check(node, cu, filePath, context, errors);
+        }
+        return errors;
+    }
+
+    default List<ValidationError> apply(
         CompilationUnit cu,
-        TxContext context,
-        JavaSymbolSolver solver
-    );
+        TxContext context
+    ) {
+        return apply(cu, ValidationScope.wholeFile(cu), context);
+    }
 }
@@ -0,0 +1,145 @@
+package gst.engine.validator;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+
+import com.github.javaparser.ast.CompilationUnit;
+import com.github.javaparser.ast.Node;
+import com.github.javaparser.ast.body.CallableDeclaration;
+import com.github.javaparser.ast.body.ConstructorDeclaration;
+import com.github.javaparser.ast.body.InitializerDeclaration;
+import com.github.javaparser.ast.body.MethodDeclaration;
+import com.github.javaparser.ast.body.TypeDeclaration;
+import com.github.javaparser.ast.expr.AnnotationExpr;
+import com.github.javaparser.ast.expr.MethodCallExpr;
+import com.github.javaparser.ast.expr.NameExpr;
+import com.github.javaparser.ast.type.ClassOrInterfaceType;
+
+/**
+ * The part of a compilation unit that a set of edits can affect, so rules
+ * only revisit those methods and call sites instead of the whole file.
+ *
+ * Each changed node contributes its anchor: the nearest enclosing method,
+ * constructor, initializer or type, taken before the edit runs (the node
+ * itself may be replaced). Edits inside a body are local to the anchor:
+ * local variable types are not seen outside it, and the rules only look at
+ * overrides and switch expressions inside it. An edit outside a body, such as
+ * a parameter, return type, field type or supertype, changes what callers,
+ * subtypes and other members of the file see, so it widens the scope to the
+ * whole file. So do an anchor detached by the edit and a removed import whose
+ * name is still used somewhere in the file. Added imports are assumed not to
+ * shadow types already in use.
+ */
+public class ValidationScope {
+    private final CompilationUnit cu;
+    private final Set<Node> anchors = Collections.newSetFromMap(new IdentityHashMap<>());
+    private boolean wholeFile;
+
+    private ValidationScope(CompilationUnit cu, boolean wholeFile) {
+        this.cu = cu;
+        this.wholeFile = wholeFile;
+    }
+
+    public static ValidationScope wholeFile(CompilationUnit cu) {
+        return new ValidationScope(cu, true);
+    }
+
+    public static ValidationScope empty(CompilationUnit cu) {
+        return new ValidationScope(cu, false);
+    }
+
+    // Call before the node is edited.
+    public void addChange(Node node) {
+        if (wholeFile) return;
+        Node anchor = anchorOf(node);
+        if (anchor == null || touchesDeclaration(node, anchor)) {
+            wholeFile = true;
+        } else {
+            anchors.add(anchor);
+        }
+    }
+
+    public void addRemovedImports(List<String> names) {
+        if (wholeFile) return;
+        for (String name : names) {
+            String simple = name.substring(name.lastIndexOf('.') + 1);
+            if (simple.equals("*") || isReferenced(simple)) {
+                wholeFile = true;
+                return;
+            }
+        }
+    }
+
+    public boolean isEmpty() {
+        return !wholeFile && anchors.isEmpty();
+    }
+
+    public boolean isWholeFile() {
+        return wholeFile || anchors.stream().anyMatch(a -> a.findCompilationUnit().orElse(null) != cu);
+    }
+
+    public CompilationUnit getCompilationUnit() {
+        return cu;
+    }
+
+    // Nodes of the given type inside the scope, in document order.
+    public <T extends Node> List<T> findAll(Class<T> type) {
+        List<T> found = new ArrayList<>();
+        for (Node root : roots()) {
+            found.addAll(root.findAll(type));
+        }
+        return found;
+    }
+
+    // Outermost anchors only: an anchor nested in another is already covered.
+    public List<Node> roots() {
+        if (isWholeFile()) {
+            return List.of(cu);
+        }
+        List<Node> roots = new ArrayList<>();
+        for (Node anchor : anchors) {
+            boolean nested = false;
+            for (Node p = anchor.getParentNode().orElse(null); p != null && !nested; p = p.getParentNode().orElse(null)) {
+                nested = anchors.contains(p);
+            }
+            if (!nested) roots.add(anchor);
+        }
+        roots.sort((a, b) -> a.getRange().flatMap(ra -> b.getRange().map(rb -> ra.begin.compareTo(rb.begin))).orElse(0));
+        return roots;
+    }
+
+    private static Node anchorOf(Node node) {
+        for (Node n = node; n != null; n = n.getParentNode().orElse(null)) {
+            if (n instanceof CallableDeclaration<?> || n instanceof InitializerDeclaration || n instanceof TypeDeclaration<?>) {
+                return n;
+            }
+        }
+        return null;
+    }
+
+    // True unless node lies in the body of its method, constructor or initializer.
+    private static boolean touchesDeclaration(Node node, Node anchor) {
+        if (anchor instanceof InitializerDeclaration) {
+            return false;
+        }
+        Node body = null;
+        if (anchor instanceof MethodDeclaration m) {
+            body = m.getBody().orElse(null);
+        } else if (anchor instanceof ConstructorDeclaration c) {
+            body = c.getBody();
+        }
+        return body == null || (body != node && !body.isAncestorOf(node));
+    }
+
+    private boolean isReferenced(String simpleName) {
+        return cu.findFirst(Node.class, n ->
+                (n instanceof ClassOrInterfaceType t && t.getNameAsString().equals(simpleName))
+                        || (n instanceof NameExpr ne && ne.getNameAsString().equals(simpleName))
+                        || (n instanceof AnnotationExpr a && a.getName().getIdentifier().equals(simpleName))
+                        || (n instanceof MethodCallExpr mc && mc.getScope().isEmpty()
+                                && mc.getNameAsString().equals(simpleName))).isPresent();
+    }
+}
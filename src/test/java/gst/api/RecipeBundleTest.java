@@ -0,0 +1,142 @@
+package gst.api;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * A mapping read back from its bundle must be the mapping MappingLoader reads
+ * from the JSON, compared as Jackson serializes both.
+ */
+public class RecipeBundleTest {
+    private static final Path RESOURCES = Paths.get("src/main/resources");
+
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    @Test
+    public void shippedMappingRoundTrips() throws IOException {
+        assertRoundTrip(RESOURCES.resolve("mappingsV3.json"));
+    }
+
+    @Test
+    public void valueTypesRoundTrip() throws IOException {
+        Path json = write("values.json", String.join("\n",
+                "{ \"recipes\": [ {",
+                "  \"name\": \"values\",",
+                "  \"description\": null,",
+                "  \"rollbackOnError\": true,",
+                "  \"imports\": { \"add\": [\"java.util.List\"], \"remove\": [] },",
+                "  \"steps\": [ {",
+                "    \"match\": { \"nodeType\": \"MethodCallExpr\", \"name\": \"put\" },",
+                "    \"actions\": [ { \"replaceWithMethodCall\": {",
+                "        \"methodName\": \"putAll\", \"count\": 3, \"big\": 12345678901, \"ratio\": 0.5,",
+                "        \"flag\": false, \"none\": null, \"nested\": { \"list\": [1, \"two\", [true]] },",
+                "        \"text\": \"\\u00e9\\u4e2d\\ud83d\\ude00\" } } ]",
+                "  } ]",
+                "} ] }"));
+        assertRoundTrip(json);
+    }
+
+    @Test
+    public void loaderRecognisesBundleByContent() throws IOException {
+        Path json = RESOURCES.resolve("mappingsV3.json");
+        Path bundle = tmp.getRoot().toPath().resolve("named.json");
+        RecipeBundle.compile(json, bundle);
+        assertTrue(RecipeBundle.isBundle(bundle));
+        assertFalse(RecipeBundle.isBundle(json));
+        List<Recipe> recipes = MappingLoader.load(bundle);
+        for (Recipe recipe : recipes) {
+            for (Step step : recipe.steps) {
+                assertNotNull(step.compiledMatch);
+                assertNotNull(step.boundActions);
+            }
+        }
+    }
+
+    @Test
+    public void equalStringsAreShared() throws IOException {
+        List<Recipe> recipes = RecipeBundle.read(bundle(RESOURCES.resolve("mappingsV3.json")));
+        Map<String, String> seen = new HashMap<>();
+        int repeats = 0;
+        for (Recipe recipe : recipes) {
+            for (Step step : recipe.steps) {
+                String first = seen.putIfAbsent(step.match.nodeType, step.match.nodeType);
+                if (first != null) {
+                    assertSame(first, step.match.nodeType);
+                    repeats++;
+                }
+            }
+        }
+        assertTrue(repeats > 0);
+    }
+
+    @Test
+    public void unknownNodeTypeIsRejected() throws IOException {
+        Path json = write("unknown.json",
+                "{ \"recipes\": [ { \"name\": \"r\", \"steps\": [ { \"match\": { \"nodeType\": \"NoSuchNode\" }, \"actions\": [] } ] } ] }");
+        IllegalArgumentException ex = assertThrows(IllegalArgumentException.class,
+                () -> RecipeBundle.compile(json, tmp.getRoot().toPath().resolve("unknown.gstb")));
+        assertTrue(ex.getMessage().contains("NoSuchNode"));
+    }
+
+    @Test
+    public void otherVersionIsRejected() throws IOException {
+        Path bundle = bundle(RESOURCES.resolve("mappingsV3.json"));
+        byte[] bytes = Files.readAllBytes(bundle);
+        ByteBuffer.wrap(bytes).putInt(4, 99);
+        Files.write(bundle, bytes);
+        IOException ex = assertThrows(IOException.class, () -> RecipeBundle.read(bundle));
+        assertTrue(ex.getMessage().contains("version 99"));
+    }
+
+    @Test
+    public void truncatedBundleIsReportedAsCorrupt() throws IOException {
+        Path bundle = bundle(RESOURCES.resolve("mappingsV3.json"));
+        byte[] bytes = Files.readAllBytes(bundle);
+        Files.write(bundle, Arrays.copyOf(bytes, bytes.length / 2));
+        IOException ex = assertThrows(IOException.class, () -> RecipeBundle.read(bundle));
+        assertTrue(ex.getMessage().startsWith("Corrupt recipe bundle"));
+    }
+
+    private void assertRoundTrip(Path json) throws IOException {
+        JsonNode expected = mapper.valueToTree(MappingLoader.load(json));
+        JsonNode actual = mapper.valueToTree(MappingLoader.load(bundle(json)));
+        assertEquals(json.toString(), expected, actual);
+    }
+
+    private Path bundle(Path json) throws IOException {
+        Path bundle = tmp.getRoot().toPath().resolve(json.getFileName() + RecipeBundle.EXTENSION);
+        RecipeBundle.compile(json, bundle);
+        return bundle;
+    }
+
+    private Path write(String name, String content) throws IOException {
+        Path file = tmp.getRoot().toPath().resolve(name);
+        Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+        return file;
+    }
+}
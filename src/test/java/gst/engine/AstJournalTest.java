@@ -0,0 +1,170 @@
+package gst.engine;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.junit.Test;
+
+import com.github.javaparser.StaticJavaParser;
+import com.github.javaparser.ast.CompilationUnit;
+import com.github.javaparser.ast.Node;
+import com.github.javaparser.ast.NodeList;
+import com.github.javaparser.ast.body.MethodDeclaration;
+import com.github.javaparser.ast.expr.Expression;
+import com.github.javaparser.ast.expr.MethodCallExpr;
+import com.github.javaparser.ast.expr.NameExpr;
+import com.github.javaparser.ast.expr.SimpleName;
+import com.github.javaparser.ast.stmt.BlockStmt;
+import com.github.javaparser.ast.stmt.Statement;
+
+public class AstJournalTest {
+    private static final Path CORPUS = Paths.get("src/main/resources/input/guava");
+
+    @Test
+    public void rollbackRestoresTheParsedUnit() {
+        CompilationUnit cu = StaticJavaParser.parse("class A { int f(int x) { return x + 1; } }");
+        String parsed = cu.toString();
+        AstJournal journal = AstJournal.attach(cu);
+
+        MethodDeclaration m = cu.findFirst(MethodDeclaration.class).orElseThrow();
+        m.setName("g");
+        m.getBody().orElseThrow().addStatement(0, StaticJavaParser.parseStatement("x++;"));
+        m.getParameter(0).setType("long");
+        cu.addImport("java.util.List");
+        assertTrue(journal.hasChangesSince(0));
+
+        journal.rollbackTo(0);
+        assertEquals(parsed, cu.toString());
+        assertFalse(journal.hasChangesSince(0));
+    }
+
+    @Test
+    public void rollbackToAMarkKeepsEarlierEdits() {
+        CompilationUnit cu = StaticJavaParser.parse("class A { void f() { a(); } }");
+        AstJournal journal = AstJournal.attach(cu);
+        MethodCallExpr call = cu.findFirst(MethodCallExpr.class).orElseThrow();
+
+        call.setName("b");
+        String afterFirst = cu.toString();
+        int mark = journal.mark();
+        call.setName("c");
+        call.addArgument("1");
+
+        journal.rollbackTo(mark);
+        assertEquals(afterFirst, cu.toString());
+    }
+
+    @Test
+    public void editsInsideNodesAddedAfterAttachAreJournaled() {
+        CompilationUnit cu = StaticJavaParser.parse("class A { void f() { a(); } }");
+        AstJournal journal = AstJournal.attach(cu);
+        BlockStmt body = cu.findFirst(MethodDeclaration.class).orElseThrow().getBody().orElseThrow();
+
+        // a first recipe inserts a statement and an import
+        body.addStatement(StaticJavaParser.parseStatement("b(x);"));
+        cu.addImport("java.util.List");
+        String afterFirst = cu.toString();
+        int mark = journal.mark();
+
+        // a second recipe edits inside both, and inside a node it attached itself
+        MethodCallExpr inserted = body.getStatement(1).asExpressionStmt().getExpression().asMethodCallExpr();
+        inserted.setName("c");
+        inserted.getArgument(0).asNameExpr().setName("y");
+        cu.getImport(0).setName("java.util.Set");
+        Statement wrapped = StaticJavaParser.parseStatement("if (ok) { d(); }");
+        body.addStatement(wrapped);
+        wrapped.findFirst(MethodCallExpr.class).orElseThrow().setName("e");
+
+        journal.rollbackTo(mark);
+        assertEquals(afterFirst, cu.toString());
+    }
+
+    @Test
+    public void replacedNodesAreRestored() {
+        CompilationUnit cu = StaticJavaParser.parse("class A { int f() { return g(1); } }");
+        String parsed = cu.toString();
+        AstJournal journal = AstJournal.attach(cu);
+
+        MethodCallExpr call = cu.findFirst(MethodCallExpr.class).orElseThrow();
+        Expression replacement = StaticJavaParser.parseExpression("h(2, 3)");
+        call.replace(replacement);
+        replacement.asMethodCallExpr().setName("k");
+        cu.findFirst(MethodDeclaration.class).orElseThrow().getBody().orElseThrow().getStatements().clear();
+
+        journal.rollbackTo(0);
+        assertEquals(parsed, cu.toString());
+    }
+
+    @Test
+    public void randomEditsOverCorpusRollBackInStages() throws IOException {
+        Random random = new Random(7);
+        List<Path> files;
+        try (Stream<Path> walk = Files.walk(CORPUS)) {
+            files = walk.filter(p -> p.toString().endsWith(".java")).sorted().limit(60).collect(Collectors.toList());
+        }
+        for (Path file : files) {
+            CompilationUnit cu = StaticJavaParser.parse(file);
+            String parsed = cu.toString();
+            AstJournal journal = AstJournal.attach(cu);
+
+            randomEdits(cu, random, 20);
+            String afterFirst = cu.toString();
+            int mark = journal.mark();
+            randomEdits(cu, random, 20);
+
+            journal.rollbackTo(mark);
+            assertEquals(file + " at the mark", afterFirst, cu.toString());
+            journal.rollbackTo(0);
+            assertEquals(file + " as parsed", parsed, cu.toString());
+        }
+    }
+
+    // Renames, statement insertions and removals, expression replacements and imports,
+    // partly inside nodes added by earlier edits.
+    private static void randomEdits(CompilationUnit cu, Random random, int count) {
+        for (int i = 0; i < count; i++) {
+            switch (random.nextInt(5)) {
+                case 0 -> {
+                    SimpleName name = pick(cu.findAll(SimpleName.class), random);
+                    if (name != null) {
+                        name.setIdentifier("renamed" + i);
+                    }
+                }
+                case 1 -> {
+                    BlockStmt block = pick(cu.findAll(BlockStmt.class), random);
+                    if (block != null) {
+                        block.addStatement(random.nextInt(block.getStatements().size() + 1),
+                                StaticJavaParser.parseStatement("inserted" + i + "(a, b);"));
+                    }
+                }
+                case 2 -> {
+                    BlockStmt block = pick(cu.findAll(BlockStmt.class), random);
+                    if (block != null && block.getStatements().isNonEmpty()) {
+                        block.getStatements().remove(random.nextInt(block.getStatements().size()));
+                    }
+                }
+                case 3 -> {
+                    NameExpr name = pick(cu.findAll(NameExpr.class), random);
+                    if (name != null && name.getParentNode().isPresent()) {
+                        name.replace(new MethodCallExpr(null, "wrapped" + i, new NodeList<>(new NameExpr(name.getNameAsString()))));
+                    }
+                }
+                default -> cu.addImport("gst.added.Type" + i);
+            }
+        }
+    }
+
+    private static <T extends Node> T pick(List<T> nodes, Random random) {
+        return nodes.isEmpty() ? null : nodes.get(random.nextInt(nodes.size()));
+    }
+}
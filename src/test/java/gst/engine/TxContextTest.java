@@ -0,0 +1,117 @@
+package gst.engine;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.github.javaparser.ast.CompilationUnit;
+import com.github.javaparser.ast.body.VariableDeclarator;
+import com.github.javaparser.ast.expr.VariableDeclarationExpr;
+
+import gst.engine.actions.ChangeTypeAction;
+import gst.engine.parser.ParserSession;
+import gst.engine.validator.TypeCompatibilityRule;
+import gst.engine.validator.ValidationError;
+
+/**
+ * Savepoints as the pipeline takes them: per recipe, for a file whose path is
+ * relative to the working directory while its unit's storage path is absolute.
+ */
+public class TxContextTest {
+    private static final String SOURCE = String.join("\n",
+            "import java.util.ArrayList;",
+            "import java.util.List;",
+            "class A {",
+            "    void take(List<String> l) { }",
+            "    void f() {",
+            "        List<String> xs = new ArrayList<>();",
+            "        take(xs);",
+            "        List<String> ys = new ArrayList<>();",
+            "    }",
+            "}",
+            "");
+
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    private final Path file = Paths.get("src", "A.java");
+    private ParserSession session;
+    private CompilationUnit cu;
+    private TxContext ctx;
+
+    @Before
+    public void setUp() {
+        session = new ParserSession(tmp.getRoot().toPath());
+        cu = session.parse(file, SOURCE.getBytes(StandardCharsets.UTF_8));
+        ctx = new TxContext();
+    }
+
+    @Test
+    public void rolledBackChangeTypeDoesNotLeakIntoTheNextRecipe() {
+        // first recipe: an incompatible type for xs, rejected by validation and rolled back
+        TxContext.Savepoint first = ctx.savepoint(file);
+        changeType("xs", "java.util.Set<String>");
+        assertTrue(ctx.hasVarChanged(cu, "xs"));
+        ctx.rollbackTo(file, first);
+
+        assertFalse(ctx.hasVarChanged(cu, "xs"));
+        assertEquals("List<String>", declarator("xs").getTypeAsString());
+
+        // second recipe: an unrelated change, validated against the tree as it now is
+        ctx.savepoint(file);
+        changeType("ys", "var");
+        assertEquals("var", ctx.getVarType(cu, "ys").orElse(null));
+        assertFalse(ctx.getVarType(cu, "xs").isPresent());
+        List<ValidationError> errors = new TypeCompatibilityRule().apply(cu, ctx);
+        assertEquals(List.of(), errors);
+    }
+
+    @Test
+    public void savepointKeepsTypesOfEarlierRecipes() {
+        changeType("ys", "var");
+        TxContext.Savepoint second = ctx.savepoint(file);
+        changeType("xs", "java.util.Set<String>");
+        ctx.rollbackTo(file, second);
+
+        assertEquals("var", ctx.getVarType(cu, "ys").orElse(null));
+        assertFalse(ctx.hasVarChanged(cu, "xs"));
+        assertEquals("var", declarator("ys").getTypeAsString());
+    }
+
+    @Test
+    public void rollbackAndEndFileDropTheFilesTypes() {
+        changeType("xs", "var");
+        ctx.rollback(file);
+        assertFalse(ctx.hasVarChanged(cu, "xs"));
+        assertEquals("List<String>", declarator("xs").getTypeAsString());
+
+        changeType("ys", "var");
+        ctx.endFile(file);
+        assertFalse(ctx.hasVarChanged(cu, "ys"));
+    }
+
+    private void changeType(String variable, String newType) {
+        ctx.beginChange(file, cu);
+        VariableDeclarationExpr declaration = cu.findAll(VariableDeclarationExpr.class).stream()
+                .filter(v -> v.getVariable(0).getNameAsString().equals(variable))
+                .findFirst().orElseThrow();
+        new ChangeTypeAction(Map.of("newType", newType)).apply(declaration, cu, ctx, session);
+    }
+
+    private VariableDeclarator declarator(String variable) {
+        return cu.findAll(VariableDeclarator.class).stream()
+                .filter(v -> v.getNameAsString().equals(variable))
+                .findFirst().orElseThrow();
+    }
+}
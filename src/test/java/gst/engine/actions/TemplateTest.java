@@ -0,0 +1,51 @@
+package gst.engine.actions;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Test;
+
+import com.github.javaparser.ParseProblemException;
+import com.github.javaparser.StaticJavaParser;
+import com.github.javaparser.ast.expr.Expression;
+
+public class TemplateTest {
+    @Test
+    public void holesTakeTheArgument() {
+        Template template = Template.expression("Objects.requireNonNull($ARG$).trim()");
+        Expression arg = StaticJavaParser.parseExpression("a + b");
+        Expression out = template.instantiate(arg, null);
+        assertEquals("Objects.requireNonNull(a + b).trim()", out.toString());
+    }
+
+    @Test
+    public void eachUseOfABrokenTemplateThrowsItsOwnError() {
+        Template template = Template.expression("foo(");
+        ParseProblemException first = assertThrows(ParseProblemException.class, () -> template.instantiate(null, null));
+        ParseProblemException second = assertThrows(ParseProblemException.class, () -> template.instantiate(null, null));
+        assertNotSame(first, second);
+        assertEquals(first.getProblems(), second.getProblems());
+    }
+
+    @Test
+    public void replaceWithTemplateRequiresTemplate() {
+        IllegalArgumentException ex = assertThrows(IllegalArgumentException.class,
+                () -> new ReplaceWithTemplateAction(new HashMap<>()));
+        assertTrue(ex.getMessage().contains("replaceWithTemplate"));
+    }
+
+    @Test
+    public void wrapArgumentRequiresTemplate() {
+        Map<String, Object> params = new HashMap<>();
+        params.put("addImports", null);
+        IllegalArgumentException ex = assertThrows(IllegalArgumentException.class,
+                () -> new WrapArgumentAction(params));
+        assertTrue(ex.getMessage().contains("wrapArgument"));
+        assertThrows(IllegalArgumentException.class, () -> ActionFactory.create("wrapArgument", null));
+    }
+}
@@ -0,0 +1,61 @@
+package gst.engine.event;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertThrows;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Test;
+
+public class AsyncEventSinkTest {
+
+    @Test
+    public void deliversEveryEventInOrder() {
+        List<String> seen = Collections.synchronizedList(new ArrayList<>());
+        AsyncEventSink sink = new AsyncEventSink(recording(seen, null), 4);
+        for (int i = 0; i < 100; i++) {
+            sink.accept(Level.INFO, "T", "{}", i, null, null);
+        }
+        sink.close();
+        assertEquals(100, seen.size());
+        assertEquals("99", seen.get(99));
+    }
+
+    @Test
+    public void failureOfTheDelegateReachesTheCaller() {
+        List<String> seen = Collections.synchronizedList(new ArrayList<>());
+        StackOverflowError error = new StackOverflowError();
+        AsyncEventSink sink = new AsyncEventSink(recording(seen, error), 4);
+        sink.accept(Level.INFO, "T", "fail", null, null, null);
+        // the ring keeps draining, so a full ring never parks the caller
+        for (int i = 0; i < 20 && seen.isEmpty(); i++) {
+            try {
+                sink.accept(Level.INFO, "T", "{}", i, null, null);
+            } catch (StackOverflowError ex) {
+                break;
+            }
+        }
+        assertSame(error, assertThrows(StackOverflowError.class, sink::close));
+    }
+
+    // Records formatted messages; throws error for the message "fail".
+    private static EventSink recording(List<String> seen, Error error) {
+        return new EventSink() {
+            @Override
+            public Level threshold() {
+                return Level.DEBUG;
+            }
+
+            @Override
+            public void accept(Level level, String tag, String message, Object a, Object b, Object c) {
+                if (error != null && message.equals("fail")) {
+                    throw error;
+                }
+                seen.add(EventSink.format(message, a, b, c));
+            }
+        };
+    }
+}
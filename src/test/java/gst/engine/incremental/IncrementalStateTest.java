@@ -0,0 +1,162 @@
+package gst.engine.incremental;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.github.javaparser.StaticJavaParser;
+import com.github.javaparser.ast.CompilationUnit;
+
+import gst.engine.event.Events;
+import gst.engine.utils.ContentHash;
+
+public class IncrementalStateTest {
+    private static final String CONFIG = IncrementalState.configHash("{}".getBytes(StandardCharsets.UTF_8), "output=TREE");
+
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    private Path input;
+    private Path output;
+    private Path stateFile;
+
+    @Before
+    public void setUp() throws IOException {
+        input = tmp.newFolder("input").toPath();
+        output = tmp.newFolder("output").toPath();
+        stateFile = tmp.getRoot().toPath().resolve("state.json");
+        write("a/Base.java", "package a; public class Base { }");
+        write("a/User.java", "package a; public class User { Base base; }");
+        write("a/Other.java", "package a; public class Other { }");
+    }
+
+    @Test
+    public void firstRunProcessesEveryFile() throws IOException {
+        IncrementalState state = IncrementalState.load(stateFile, output, CONFIG, Events.CONSOLE);
+        assertEquals(files(), state.plan(input, files(), false));
+        assertEquals(0, state.getSkipped());
+    }
+
+    @Test
+    public void unchangedFilesAreSkipped() throws IOException {
+        runAll(output, CONFIG);
+        IncrementalState state = IncrementalState.load(stateFile, output, CONFIG, Events.CONSOLE);
+        assertTrue(state.plan(input, files(), false).isEmpty());
+        assertEquals(3, state.getSkipped());
+    }
+
+    @Test
+    public void changedFileAndItsDependentsAreReprocessed() throws IOException {
+        runAll(output, CONFIG);
+        write("a/Base.java", "package a; public class Base { int x; }");
+        IncrementalState state = IncrementalState.load(stateFile, output, CONFIG, Events.CONSOLE);
+        assertEquals(List.of(file("a/Base.java"), file("a/User.java")), state.plan(input, files(), false));
+        assertEquals(1, state.getSkipped());
+    }
+
+    @Test
+    public void configChangeReprocessesEveryFile() throws IOException {
+        runAll(output, CONFIG);
+        String otherConfig = IncrementalState.configHash("{}".getBytes(StandardCharsets.UTF_8), "output=PATCH");
+        assertNotEquals(CONFIG, otherConfig);
+        IncrementalState state = IncrementalState.load(stateFile, output, otherConfig, Events.CONSOLE);
+        assertEquals(files(), state.plan(input, files(), false));
+    }
+
+    @Test
+    public void transformedFileWithMissingOutputIsReprocessed() throws IOException {
+        runAll(output, CONFIG);
+        Files.delete(output.resolve("a/Other.java"));
+        IncrementalState state = IncrementalState.load(stateFile, output, CONFIG, Events.CONSOLE);
+        assertEquals(List.of(file("a/Other.java")), state.plan(input, files(), false));
+    }
+
+    @Test
+    public void withoutPerFileOutputsTransformedFilesAreAlwaysReprocessed() throws IOException {
+        runAll(null, CONFIG);
+        IncrementalState state = IncrementalState.load(stateFile, null, CONFIG, Events.CONSOLE);
+        assertEquals(List.of(file("a/Other.java")), state.plan(input, files(), false));
+    }
+
+    @Test
+    public void removedFileDiscardsItsOutputAndReprocessesDependents() throws IOException {
+        runAll(output, CONFIG);
+        Files.delete(file("a/Other.java"));
+        Files.delete(file("a/Base.java"));
+
+        IncrementalState state = IncrementalState.load(stateFile, output, CONFIG, Events.CONSOLE);
+        assertEquals(List.of(file("a/User.java")), state.plan(input, files(), false));
+        assertFalse(Files.exists(output.resolve("a/Other.java")));
+    }
+
+    @Test
+    public void plannedHashesAndSourcesAreHandedOverOnce() throws IOException {
+        runAll(output, CONFIG);
+        write("a/Base.java", "package a; public class Base { int y; }");
+        IncrementalState state = IncrementalState.load(stateFile, output, CONFIG, Events.CONSOLE);
+        state.plan(input, files(), true);
+
+        Path base = file("a/Base.java");
+        byte[] content = Files.readAllBytes(base);
+        assertArrayEquals(content, state.takeSource(base));
+        assertEquals(ContentHash.sha256(content), state.takeHash(base));
+        assertNull(state.takeSource(base));
+        assertNull(state.takeHash(base));
+        // a dependent of a changed file is processed but was unchanged itself, so only its hash is kept
+        Path user = file("a/User.java");
+        assertNull(state.takeSource(user));
+        assertEquals(ContentHash.sha256(Files.readAllBytes(user)), state.takeHash(user));
+    }
+
+    // Processes every planned file as the pipeline would, transforming Other.java only.
+    private void runAll(Path outputRoot, String config) throws IOException {
+        IncrementalState state = IncrementalState.load(stateFile, outputRoot, config, Events.CONSOLE);
+        for (Path src : state.plan(input, files(), false)) {
+            String rel = input.relativize(src).toString();
+            CompilationUnit cu = StaticJavaParser.parse(src);
+            IncrementalState.FileRecord record = state.newRecord(cu, state.takeHash(src));
+            if (rel.endsWith("Other.java")) {
+                record.outcome = IncrementalState.Outcome.TRANSFORMED;
+                if (outputRoot != null) {
+                    Files.createDirectories(outputRoot.resolve(rel).getParent());
+                    Files.write(outputRoot.resolve(rel), Files.readAllBytes(src));
+                }
+            }
+            state.record(rel, record);
+        }
+        state.save();
+    }
+
+    private List<Path> files() throws IOException {
+        try (Stream<Path> files = Files.walk(input)) {
+            return files.filter(p -> p.toString().endsWith(".java")).sorted().collect(Collectors.toCollection(ArrayList::new));
+        }
+    }
+
+    private Path file(String rel) {
+        return input.resolve(rel);
+    }
+
+    private void write(String rel, String content) throws IOException {
+        Path path = input.resolve(rel);
+        Files.createDirectories(path.getParent());
+        Files.writeString(path, content);
+    }
+}
@@ -0,0 +1,175 @@
+package gst.engine.matcher;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.junit.Test;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.javaparser.ast.CompilationUnit;
+import com.github.javaparser.ast.Node;
+
+import gst.api.Match;
+import gst.api.MappingLoader;
+import gst.api.Recipe;
+import gst.api.Step;
+import gst.engine.parser.ParserSession;
+
+/**
+ * The filter may let through files no step matches, but must never reject a
+ * file some step matches in.
+ */
+public class LexicalFilterTest {
+    private static final Path CORPUS = Paths.get("src/main/resources/input");
+
+    // Criteria decided from the syntax tree alone, so matching needs no symbol solver.
+    private static final String[] SYNTACTIC = {
+        "{\"nodeType\": \"MethodCallExpr\", \"methodName\": \"checkNotNull\"}",
+        "{\"nodeType\": \"MethodCallExpr\", \"methodName\": \"toStringHelper\"}",
+        "{\"nodeType\": \"ClassOrInterfaceDeclaration\", \"annotation\": \"Beta\"}",
+        "{\"nodeType\": \"BinaryExpr\", \"operator\": \"+\", \"literalOnly\": true}",
+        "{\"nodeType\": \"ForStmt\", \"initVarPattern\": \"^i$\"}",
+        "{\"nodeType\": \"SwitchStmt\"}",
+        "{\"nodeType\": \"ObjectCreationExpr\", \"typePattern\": \"new\\\\s+StringBuilder\\\\(\"}",
+        "{\"nodeType\": \"MethodCallExpr\", \"matchExpr\": \"System\\\\.out\\\\.println\\\\(\"}",
+    };
+
+    @Test
+    public void neverRejectsAMatchingCorpusFile() throws IOException {
+        ParserSession session = new ParserSession(CORPUS);
+        int rejected = 0;
+        for (String json : SYNTACTIC) {
+            List<Recipe> recipes = recipes(json);
+            LexicalFilter filter = new LexicalFilter(recipes);
+            assertTrue(json, filter.isEnabled());
+            for (Path file : corpus()) {
+                byte[] source = Files.readAllBytes(file);
+                if (filter.mayMatch(source)) {
+                    continue;
+                }
+                rejected++;
+                assertFalse(json + " matches in rejected " + file, matchesAny(recipes, session, file, source));
+            }
+        }
+        assertTrue("the filter should reject some files", rejected > 0);
+    }
+
+    @Test
+    public void rejectsFilesWithoutTheRequiredTokens() {
+        LexicalFilter filter = new LexicalFilter(recipes("{\"nodeType\": \"MethodCallExpr\", \"methodName\": \"checkNotNull\"}"));
+        assertFalse(filter.mayMatch(bytes("class A { void f(Object o) { check(o); } }")));
+        // identifiers are matched whole, not as fragments
+        assertFalse(filter.mayMatch(bytes("class A { void f(Object o) { checkNotNullOrEmpty(o); } }")));
+        assertTrue(filter.mayMatch(bytes("class A { void f(Object o) { checkNotNull(o); } }")));
+    }
+
+    @Test
+    public void tokensInCommentsAndStringsKeepTheFile() {
+        LexicalFilter filter = new LexicalFilter(recipes("{\"nodeType\": \"MethodCallExpr\", \"methodName\": \"checkNotNull\"}"));
+        assertTrue(filter.mayMatch(bytes("class A { /* checkNotNull */ }")));
+        assertTrue(filter.mayMatch(bytes("class A { String s = \"checkNotNull\"; }")));
+    }
+
+    @Test
+    public void unicodeEscapesAlwaysParse() {
+        LexicalFilter filter = new LexicalFilter(recipes("{\"nodeType\": \"ForStmt\"}"));
+        // spells "for" once unescaped, which the byte scan cannot see
+        assertTrue(filter.mayMatch(bytes("class A { void f() { \\u0066or (;;) { } } }")));
+        assertFalse(filter.mayMatch(bytes("class A { void f() { while (true) { } } }")));
+    }
+
+    @Test
+    public void inferredTypesDoNotRequireTheTypeName() {
+        LexicalFilter declarations = new LexicalFilter(recipes("{\"nodeType\": \"VariableDeclarationExpr\", \"type\": \"java.util.List\"}"));
+        assertTrue(declarations.mayMatch(bytes("class A { void f() { var l = g(); } }")));
+        assertTrue(declarations.mayMatch(bytes("class A { void f() { List<String> l = g(); } }")));
+        assertFalse(declarations.mayMatch(bytes("class A { void f() { String l = g(); } }")));
+
+        LexicalFilter parameters = new LexicalFilter(recipes("{\"nodeType\": \"Parameter\", \"type\": \"String\"}"));
+        assertTrue(parameters.mayMatch(bytes("class A { Runnable r = (a) -> { }; }")));
+        assertFalse(parameters.mayMatch(bytes("class A { void f(int a) { } }")));
+    }
+
+    @Test
+    public void typeArgumentsAndArraysRequireOnlyTheSimpleName() {
+        LexicalFilter generic = new LexicalFilter(recipes("{\"nodeType\": \"VariableDeclarationExpr\", \"fqn\": \"java.util.List<java.lang.String>\"}"));
+        assertTrue(generic.mayMatch(bytes("class A { void f() { List<String> l = g(); } }")));
+        assertFalse(generic.mayMatch(bytes("class A { void f() { String l = g(); } }")));
+
+        LexicalFilter array = new LexicalFilter(recipes("{\"nodeType\": \"ObjectCreationExpr\", \"fqn\": \"com.acme.Foo[]\"}"));
+        assertTrue(array.mayMatch(bytes("class A { Object o = new Foo(); }")));
+        assertFalse(array.mayMatch(bytes("class A { Object o = new Bar(); }")));
+    }
+
+    @Test
+    public void anyStepCanKeepTheFile() {
+        LexicalFilter filter = new LexicalFilter(recipes(
+                "{\"nodeType\": \"MethodCallExpr\", \"methodName\": \"checkNotNull\"}",
+                "{\"nodeType\": \"SwitchStmt\"}"));
+        assertTrue(filter.mayMatch(bytes("class A { void f(int i) { switch (i) { } } }")));
+        assertFalse(filter.mayMatch(bytes("class A { }")));
+    }
+
+    @Test
+    public void stepWithoutTokensDisablesTheFilter() {
+        LexicalFilter filter = new LexicalFilter(recipes(
+                "{\"nodeType\": \"SwitchStmt\"}",
+                "{\"nodeType\": \"MethodCallExpr\"}"));
+        assertFalse(filter.isEnabled());
+        assertTrue(filter.mayMatch(bytes("class A { }")));
+    }
+
+    private static boolean matchesAny(List<Recipe> recipes, ParserSession session, Path file, byte[] source) {
+        CompilationUnit cu = session.parse(file, source);
+        MatchContext ctx = new MatchContext(session);
+        for (Recipe recipe : recipes) {
+            for (Step step : recipe.steps) {
+                for (Node node : NodeMatcher.findCandidates(cu, step.match.nodeType)) {
+                    if (step.compiledMatch.matches(node, ctx)) {
+                        return true;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    // One recipe with a step per match, compiled as the mapping loader would.
+    private static List<Recipe> recipes(String... matches) {
+        Recipe recipe = new Recipe();
+        recipe.name = "test";
+        recipe.steps = new ArrayList<>();
+        for (String json : matches) {
+            Step step = new Step();
+            try {
+                step.match = new ObjectMapper().readValue(json, Match.class);
+            } catch (IOException ex) {
+                throw new IllegalArgumentException(json, ex);
+            }
+            recipe.steps.add(step);
+        }
+        List<Recipe> recipes = List.of(recipe);
+        MappingLoader.compile(recipes);
+        return recipes;
+    }
+
+    private static List<Path> corpus() throws IOException {
+        try (Stream<Path> files = Files.walk(CORPUS)) {
+            return files.filter(p -> p.toString().endsWith(".java")).sorted().collect(Collectors.toList());
+        }
+    }
+
+    private static byte[] bytes(String source) {
+        return source.getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,33 @@
+package gst.engine.output;
+
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertThrows;
+
+import java.util.List;
+
+import org.junit.Test;
+
+public class AsyncOutputWriterTest {
+
+    @Test
+    public void errorOnTheWriterThreadIsRethrown() {
+        OutOfMemoryError error = new OutOfMemoryError("test");
+        AsyncOutputWriter writer = new AsyncOutputWriter(new OutputWriter() {
+            @Override
+            public void write(String relativePath, String original, List<Revision> revisions) {
+                throw error;
+            }
+
+            @Override
+            public void close() {
+            }
+        }, 1);
+        // the failed file is not retried, so later writes drain instead of blocking
+        assertThrows(Throwable.class, () -> {
+            for (int i = 0; i < 100; i++) {
+                writer.write("A.java", "a", List.of(new OutputWriter.Revision(List.of("r"), "b")));
+            }
+        });
+        assertSame(error, assertThrows(OutOfMemoryError.class, writer::close));
+    }
+}
@@ -0,0 +1,101 @@
+package gst.engine.output;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThrows;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import gst.engine.event.Events;
+
+public class PatchOutputWriterTest {
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    @Test
+    public void patchIsSortedByPathWhateverTheCompletionOrder() throws Exception {
+        List<String> paths = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            paths.add(String.format("p%d/F%02d.java", i % 3, i));
+        }
+        String expected = null;
+        for (long seed = 0; seed < 5; seed++) {
+            List<String> order = new ArrayList<>(paths);
+            Collections.shuffle(order, new Random(seed));
+            Path patch = tmp.newFolder().toPath().resolve(PatchOutputWriter.PATCH_FILE);
+            PatchOutputWriter writer = PatchOutputWriter.single(patch, Events.CONSOLE);
+            ExecutorService pool = Executors.newFixedThreadPool(4);
+            try {
+                List<Future<?>> done = new ArrayList<>();
+                for (String path : order) {
+                    done.add(pool.submit(() -> {
+                        writer.write(path, "class A {\n}\n", List.of(new OutputWriter.Revision(List.of("r"), "class B {\n}\n")));
+                        return null;
+                    }));
+                }
+                for (Future<?> f : done) {
+                    f.get();
+                }
+            } finally {
+                pool.shutdown();
+            }
+            writer.close();
+
+            String text = Files.readString(patch);
+            List<String> written = text.lines().filter(l -> l.startsWith("--- a/")).map(l -> l.substring(6)).toList();
+            List<String> sorted = new ArrayList<>(paths);
+            Collections.sort(sorted);
+            assertEquals(sorted, written);
+            if (expected != null) {
+                assertEquals(expected, text);
+            }
+            expected = text;
+        }
+    }
+
+    @Test
+    public void perRecipePatchesHoldEachRecipesOwnChange() throws IOException {
+        Path dir = tmp.newFolder().toPath();
+        PatchOutputWriter writer = PatchOutputWriter.perRecipe(dir, List.of("first", "second"), Events.CONSOLE);
+        writer.write("A.java", "a\nb\n", List.of(
+                new OutputWriter.Revision(List.of("first"), "A\nb\n"),
+                new OutputWriter.Revision(List.of("second"), "A\nB\n")));
+        writer.close();
+
+        assertEquals("--- a/A.java\n+++ b/A.java\n@@ -1,2 +1,2 @@\n-a\n+A\n b\n", Files.readString(dir.resolve("first.patch")));
+        assertEquals("--- a/A.java\n+++ b/A.java\n@@ -1,2 +1,2 @@\n A\n-b\n+B\n", Files.readString(dir.resolve("second.patch")));
+        // the per-file fragments go away with the writer
+        try (Stream<Path> left = Files.list(dir)) {
+            assertEquals(List.of("first.patch", "second.patch"), left.map(p -> p.getFileName().toString()).sorted().toList());
+        }
+    }
+
+    @Test
+    public void unchangedRunLeavesNoPatch() throws IOException {
+        Path patch = tmp.getRoot().toPath().resolve(PatchOutputWriter.PATCH_FILE);
+        Files.writeString(patch, "stale");
+        PatchOutputWriter.single(patch, Events.CONSOLE).close();
+        assertFalse(Files.exists(patch));
+    }
+
+    @Test
+    public void recipeNamesSharingAPatchFileAreRejected() {
+        Path dir = tmp.getRoot().toPath();
+        assertThrows(IllegalArgumentException.class, () -> PatchOutputWriter.perRecipe(dir, List.of("a b", "a_b"), Events.CONSOLE));
+        assertThrows(IllegalArgumentException.class, () -> PatchOutputWriter.perRecipe(dir, List.of("Upgrade", "upgrade"), Events.CONSOLE));
+    }
+}
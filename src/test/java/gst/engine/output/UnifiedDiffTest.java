@@ -0,0 +1,183 @@
+package gst.engine.output;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Diffs are checked by applying them to the original, with a strict applier
+ * that fails on any context or deleted line that does not match.
+ */
+public class UnifiedDiffTest {
+
+    @Test
+    public void equalTextsGiveNoDiff() {
+        assertEquals("", diff("a\nb\n", "a\nb\n"));
+    }
+
+    @Test
+    public void singleChange() {
+        String diff = diff("a\nb\nc\n", "a\nB\nc\n");
+        assertEquals("--- a/F.java\n+++ b/F.java\n@@ -1,3 +1,3 @@\n a\n-b\n+B\n c\n", diff);
+    }
+
+    @Test
+    public void insertIntoAndDeleteFromEmptyFile() {
+        roundTrip("", "a\nb\n");
+        roundTrip("a\nb\n", "");
+        assertTrue(diff("", "a\n").contains("@@ -0,0 +1,1 @@"));
+    }
+
+    @Test
+    public void missingFinalNewline() {
+        roundTrip("a\nb", "a\nb\n");
+        roundTrip("a\nb\n", "a\nb");
+        roundTrip("a\nb", "a\nc");
+        roundTrip("a", "b");
+        assertTrue(diff("a\nb", "a\nb\n").contains("\\ No newline at end of file\n"));
+    }
+
+    @Test
+    public void carriageReturnsAreKept() {
+        roundTrip("a\r\nb\r\nc\r\n", "a\r\nb\nc\r\n");
+        roundTrip("a\r\nb\r\n", "a\r\nx\r\nb\r\n");
+    }
+
+    @Test
+    public void distantChangesGetSeparateHunks() {
+        StringBuilder a = new StringBuilder();
+        for (int i = 0; i < 40; i++) a.append("line").append(i).append('\n');
+        String b = a.toString().replace("line2\n", "LINE2\n").replace("line30\n", "LINE30\n");
+        String diff = diff(a.toString(), b);
+        assertEquals(2, lines(diff).stream().filter(l -> l.startsWith("@@ ")).count());
+        roundTrip(a.toString(), b);
+    }
+
+    @Test
+    public void randomEditsRoundTrip() {
+        Random random = new Random(42);
+        for (int round = 0; round < 2000; round++) {
+            String original = randomText(random, random.nextInt(30));
+            String revised = edit(random, original);
+            roundTrip(original, revised);
+        }
+    }
+
+    private static void roundTrip(String original, String revised) {
+        String diff = diff(original, revised);
+        assertEquals("applying\n" + diff, revised, apply(original, diff));
+    }
+
+    private static String diff(String original, String revised) {
+        StringBuilder out = new StringBuilder();
+        UnifiedDiff.append(out, "F.java", original, revised, UnifiedDiff.DEFAULT_CONTEXT);
+        return out.toString();
+    }
+
+    // Lines with their line terminators, the last one possibly without.
+    private static List<String> lines(String text) {
+        List<String> lines = new ArrayList<>();
+        int from = 0;
+        for (int nl; (nl = text.indexOf('\n', from)) >= 0; from = nl + 1) {
+            lines.add(text.substring(from, nl + 1));
+        }
+        if (from < text.length()) {
+            lines.add(text.substring(from));
+        }
+        return lines;
+    }
+
+    private static String apply(String original, String diff) {
+        if (diff.isEmpty()) {
+            return original;
+        }
+        List<String> source = lines(original);
+        List<String> patch = lines(diff);
+        assertEquals("--- a/F.java\n", patch.get(0));
+        assertEquals("+++ b/F.java\n", patch.get(1));
+        StringBuilder out = new StringBuilder();
+        int next = 0; // next unconsumed line of the original
+        int p = 2;
+        while (p < patch.size()) {
+            String header = patch.get(p++);
+            assertTrue(header, header.startsWith("@@ -") && header.endsWith(" @@\n"));
+            String[] ranges = header.substring(4, header.length() - 4).split(" \\+");
+            String[] old = ranges[0].split(",");
+            int oldStart = Integer.parseInt(old[0]);
+            int oldCount = Integer.parseInt(old[1]);
+            int from = oldCount == 0 ? oldStart : oldStart - 1;
+            assertTrue("hunks must be in order", from >= next);
+            while (next < from) {
+                out.append(source.get(next++));
+            }
+            int consumed = 0;
+            while (p < patch.size() && !patch.get(p).startsWith("@@")) {
+                String line = patch.get(p++);
+                String text = line.substring(1);
+                if (p < patch.size() && patch.get(p).startsWith("\\ No newline at end of file")) {
+                    text = text.substring(0, text.length() - 1);
+                    p++;
+                }
+                char op = line.charAt(0);
+                if (op == ' ' || op == '-') {
+                    assertEquals("line " + (next + 1), source.get(next), text);
+                    next++;
+                    consumed++;
+                }
+                if (op == ' ' || op == '+') {
+                    out.append(text);
+                }
+            }
+            assertEquals(header, oldCount, consumed);
+        }
+        while (next < source.size()) {
+            out.append(source.get(next++));
+        }
+        return out.toString();
+    }
+
+    private static String randomText(Random random, int lines) {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < lines; i++) {
+            text.append(randomLine(random));
+        }
+        if (lines > 0 && random.nextInt(4) == 0) {
+            text.setLength(text.length() - 1);
+        }
+        return text.toString();
+    }
+
+    // A small alphabet so equal lines are common and the diff has choices to make.
+    private static String randomLine(Random random) {
+        String line = String.valueOf((char) ('a' + random.nextInt(5)));
+        return random.nextInt(10) == 0 ? line + "\r\n" : line + "\n";
+    }
+
+    private static String edit(Random random, String original) {
+        List<String> lines = new ArrayList<>(lines(original));
+        int edits = random.nextInt(6);
+        for (int i = 0; i < edits; i++) {
+            int at = lines.isEmpty() ? 0 : random.nextInt(lines.size() + 1);
+            switch (random.nextInt(3)) {
+                case 0 -> lines.add(at, randomLine(random));
+                case 1 -> {
+                    if (at < lines.size()) lines.remove(at);
+                }
+                default -> {
+                    if (at < lines.size()) lines.set(at, randomLine(random));
+                }
+            }
+        }
+        String text = String.join("", lines);
+        // toggle the final newline now and then
+        if (!text.isEmpty() && random.nextInt(5) == 0) {
+            text = text.endsWith("\n") ? text.substring(0, text.length() - 1) : text + "\n";
+        }
+        return text;
+    }
+}
@@ -0,0 +1,126 @@
+package gst.engine.resolve;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.github.javaparser.StaticJavaParser;
+import com.github.javaparser.ast.Node;
+
+import gst.engine.event.Events;
+import gst.engine.resolve.ResolutionCache.Resolution;
+
+/**
+ * Answers survive a save and reopen only while the classpath and the source
+ * files of the declarations they name are unchanged.
+ */
+public class ResolutionCacheTest {
+    private static final String CLASSPATH = "a.jar|1|1\n";
+
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    private final Node node = StaticJavaParser.parseExpression("dep.run()");
+    private final AtomicInteger calls = new AtomicInteger();
+    private Path cacheFile;
+    private Path dep;
+
+    @Before
+    public void setUp() throws IOException {
+        cacheFile = tmp.getRoot().toPath().resolve("resolution.bin");
+        dep = write("Dep.java", "class Dep { void run() { } }");
+    }
+
+    @Test
+    public void answerIsReusedWhileItsOriginIsUnchanged() throws IOException {
+        assertEquals("a.Dep", lookup(open(), "user", resolved("a.Dep", dep)));
+        assertEquals("a.Dep", lookup(open(), "user", resolved("a.Dep", dep)));
+        assertEquals(1, calls.get());
+    }
+
+    @Test
+    public void changedOriginIsResolvedAgain() throws IOException {
+        lookup(open(), "user", resolved("a.Dep", dep));
+        write("Dep.java", "class Dep { void run(int times) { } }");
+        assertEquals("a.Other", lookup(open(), "user", resolved("a.Other", dep)));
+        assertEquals(2, calls.get());
+    }
+
+    @Test
+    public void removedOriginIsResolvedAgain() throws IOException {
+        lookup(open(), "user", resolved("a.Dep", dep));
+        Files.delete(dep);
+        assertNull(lookup(open(), "user", () -> {
+            calls.incrementAndGet();
+            return Resolution.UNRESOLVED;
+        }));
+        assertEquals(2, calls.get());
+    }
+
+    @Test
+    public void unresolvedIsRememberedForTheRunOnly() throws IOException {
+        Supplier<Resolution> unresolved = () -> {
+            calls.incrementAndGet();
+            return Resolution.UNRESOLVED;
+        };
+        ResolutionCache cache = open();
+        assertNull(lookup(cache, "user", unresolved));
+        assertNull(lookup(cache, "user", unresolved));
+        assertEquals(1, calls.get());
+        assertNull(lookup(open(), "user", unresolved));
+        assertEquals(2, calls.get());
+    }
+
+    @Test
+    public void otherClasspathDiscardsTheCache() throws IOException {
+        lookup(open(), "user", resolved("a.Dep", dep));
+        ResolutionCache cache = ResolutionCache.open(cacheFile, "b.jar|1|1\n", Events.CONSOLE);
+        cache.forFile("user").resolve("fqn", node, "run/0", resolved("a.Dep", dep));
+        assertEquals(2, calls.get());
+    }
+
+    @Test
+    public void groupsOfFilesNotSeenAreDropped() throws IOException {
+        lookup(open(), "user", resolved("a.Dep", dep));
+        lookup(open(), "other", resolved("a.Dep", dep));
+        assertEquals(2, calls.get());
+        lookup(open(), "user", resolved("a.Dep", dep));
+        assertEquals(3, calls.get());
+    }
+
+    // Opens the cache, looks the node up in the group of contentHash and saves.
+    private String lookup(ResolutionCache cache, String contentHash, Supplier<Resolution> resolver) throws IOException {
+        String value = cache.forFile(contentHash).resolve("fqn", node, "run/0", resolver);
+        cache.save();
+        return value;
+    }
+
+    private ResolutionCache open() throws IOException {
+        return ResolutionCache.open(cacheFile, CLASSPATH, Events.CONSOLE);
+    }
+
+    private Supplier<Resolution> resolved(String value, Path origin) {
+        return () -> {
+            calls.incrementAndGet();
+            return new Resolution(value, Set.of(origin));
+        };
+    }
+
+    private Path write(String name, String content) throws IOException {
+        Path file = tmp.getRoot().toPath().resolve(name);
+        Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+        return file;
+    }
+}
@@ -0,0 +1,198 @@
+package gst.engine.resolve;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.jar.JarOutputStream;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+
+import javax.tools.JavaCompiler;
+import javax.tools.ToolProvider;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.github.javaparser.ast.Node;
+import com.github.javaparser.resolution.declarations.ResolvedReferenceTypeDeclaration;
+import com.github.javaparser.resolution.types.ResolvedReferenceType;
+import com.github.javaparser.symbolsolver.resolution.typesolvers.CombinedTypeSolver;
+import com.github.javaparser.symbolsolver.resolution.typesolvers.ReflectionTypeSolver;
+
+import gst.engine.event.Events;
+
+/**
+ * The index over jars compiled here from small sources: canonical names from
+ * the InnerClasses attribute, unnameable classes left out, and lookups that
+ * find every indexed name and nothing between them; supertypes and members
+ * are left to the solver, which reads them from the jar the index names.
+ */
+public class TypeIndexTest {
+    private static final Map<String, String> SOURCES = new TreeMap<>(Map.of(
+            "p/Outer.java", String.join("\n",
+                    "package p;",
+                    "public class Outer {",
+                    "    public static class Inner { public interface Deep { } }",
+                    "    public class With$Dollar { }",
+                    "    Object anonymous = new Object() { class InAnonymous { } };",
+                    "    void f() { class Local { class InLocal { } } new Local(); }",
+                    "}"),
+            "p/Top$Level.java", "package p; public class Top$Level { public enum Nested { A } }",
+            "q/Q.java", "package q; public interface Q { }",
+            "Unnamed.java", "public class Unnamed { }"));
+
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    private Path classes;
+
+    @Before
+    public void setUp() throws IOException {
+        classes = compile(SOURCES);
+    }
+
+    @Test
+    public void readsCanonicalNames() throws IOException {
+        assertEquals("p.Outer", readClass("p/Outer"));
+        assertEquals("p.Outer.Inner", readClass("p/Outer$Inner"));
+        assertEquals("p.Outer.Inner.Deep", readClass("p/Outer$Inner$Deep"));
+        assertEquals("p.Outer.With$Dollar", readClass("p/Outer$With$Dollar"));
+        assertEquals("p.Top$Level", readClass("p/Top$Level"));
+        assertEquals("p.Top$Level.Nested", readClass("p/Top$Level$Nested"));
+        assertEquals("Unnamed", readClass("Unnamed"));
+    }
+
+    @Test
+    public void leavesOutAnonymousAndLocalClasses() throws IOException {
+        assertNull(readClass("p/Outer$1"));
+        assertNull(readClass("p/Outer$1$InAnonymous"));
+        assertNull(readClass("p/Outer$1Local"));
+        assertNull(readClass("p/Outer$1Local$InLocal"));
+    }
+
+    @Test
+    public void findsEveryIndexedNameAndNothingElse() throws IOException {
+        Path jar = jar("a.jar", classes);
+        TypeIndex index = TypeIndex.open(tmp.getRoot().toPath().resolve("types.idx"), List.of(jar), Events.CONSOLE);
+        List<String> names = List.of("Unnamed", "p.Outer", "p.Outer.Inner", "p.Outer.Inner.Deep",
+                "p.Outer.With$Dollar", "p.Top$Level", "p.Top$Level.Nested", "q.Q");
+        assertEquals(names.size(), index.size());
+        for (String name : names) {
+            assertTrue(name, index.contains(name));
+            assertEquals(name, jar.toAbsolutePath().normalize(), index.jarOf(name));
+            // probes just before and after each name in byte order, and binary names
+            assertFalse(index.contains(name.substring(0, name.length() - 1)));
+            assertFalse(index.contains(name + "\0"));
+            assertFalse(index.contains(name + "$"));
+        }
+        assertFalse(index.contains(""));
+        assertFalse(index.contains("p.Outer$Inner"));
+        assertFalse(index.contains("p.Top.Level"));
+        assertFalse(index.contains("p.Outer.1"));
+        assertFalse(index.contains("\uffff"));
+        assertNull(index.jarOf("p.Outer.Local"));
+    }
+
+    @Test
+    public void firstJarWins() throws IOException {
+        Path first = jar("first.jar", classes);
+        Path second = jar("second.jar", compile(Map.of("q/Q.java", "package q; public interface Q { }",
+                "r/R.java", "package r; public class R { }")));
+        TypeIndex index = TypeIndex.open(tmp.getRoot().toPath().resolve("types.idx"), List.of(first, second), Events.CONSOLE);
+        assertEquals(first.toAbsolutePath().normalize(), index.jarOf("q.Q"));
+        assertEquals(second.toAbsolutePath().normalize(), index.jarOf("r.R"));
+    }
+
+    @Test
+    public void rebuildsWhenAJarChanges() throws IOException {
+        Path jar = jar("a.jar", classes);
+        Path indexFile = tmp.getRoot().toPath().resolve("types.idx");
+        assertFalse(TypeIndex.open(indexFile, List.of(jar), Events.CONSOLE).contains("r.R"));
+
+        jar("a.jar", compile(Map.of("r/R.java", "package r; public class R { }")));
+        Files.setLastModifiedTime(jar, FileTime.fromMillis(Files.getLastModifiedTime(jar).toMillis() + 2000));
+        TypeIndex rebuilt = TypeIndex.open(indexFile, List.of(jar), Events.CONSOLE);
+        assertTrue(rebuilt.contains("r.R"));
+        assertFalse(rebuilt.contains("p.Outer"));
+    }
+
+    @Test
+    public void indexesARealJar() throws IOException, URISyntaxException {
+        Path jar = Paths.get(Node.class.getProtectionDomain().getCodeSource().getLocation().toURI());
+        TypeIndex index = TypeIndex.open(tmp.getRoot().toPath().resolve("types.idx"), List.of(jar), Events.CONSOLE);
+        assertTrue(index.size() > 500);
+        assertNotNull(index.jarOf("com.github.javaparser.ast.Node"));
+        assertTrue(index.contains("com.github.javaparser.ast.Node.Parsedness"));
+        assertTrue(index.contains("com.github.javaparser.ast.Node.ObserverRegistrationMode"));
+        assertFalse(index.contains("com.github.javaparser.ast.Node$Parsedness"));
+        assertFalse(index.contains("com.github.javaparser.ast.NoSuchNode"));
+    }
+
+    // The index keeps no supertypes or members; the solver reads them from the jar it names.
+    @Test
+    public void solverTakesSupertypesAndMembersFromTheJar() throws IOException {
+        Path jar = jar("s.jar", compile(Map.of(
+                "s/Base.java", "package s; public class Base<T> { public T get() { return null; } }",
+                "s/Sub.java", "package s; public class Sub extends Base<String> implements q.Q { }",
+                "q/Q.java", "package q; public interface Q { }")));
+        TypeIndex index = TypeIndex.open(tmp.getRoot().toPath().resolve("types.idx"), List.of(jar), Events.CONSOLE);
+        CombinedTypeSolver solver = new CombinedTypeSolver(new ReflectionTypeSolver(), new IndexedJarTypeSolver(index));
+
+        ResolvedReferenceTypeDeclaration sub = solver.solveType("s.Sub");
+        List<String> ancestors = sub.getAncestors().stream().map(ResolvedReferenceType::describe).sorted().toList();
+        assertEquals(List.of("q.Q", "s.Base<java.lang.String>"), ancestors);
+        ResolvedReferenceTypeDeclaration base = solver.solveType("s.Base");
+        assertEquals("T", base.getTypeParameters().get(0).getName());
+        assertEquals("T", base.getDeclaredMethods().iterator().next().getReturnType().describe());
+    }
+
+    private String readClass(String internalName) throws IOException {
+        return TypeIndex.readClass(Files.readAllBytes(classes.resolve(internalName + ".class")));
+    }
+
+    private Path compile(Map<String, String> sources) throws IOException {
+        Path src = Files.createTempDirectory(tmp.getRoot().toPath(), "src");
+        Path out = Files.createTempDirectory(tmp.getRoot().toPath(), "classes");
+        List<String> args = new ArrayList<>(List.of("-d", out.toString()));
+        for (Map.Entry<String, String> e : sources.entrySet()) {
+            Path file = src.resolve(e.getKey());
+            Files.createDirectories(file.getParent());
+            Files.write(file, e.getValue().getBytes(StandardCharsets.UTF_8));
+            args.add(file.toString());
+        }
+        JavaCompiler javac = ToolProvider.getSystemJavaCompiler();
+        assertEquals(0, javac.run(null, null, null, args.toArray(new String[0])));
+        return out;
+    }
+
+    private Path jar(String name, Path classDir) throws IOException {
+        Path jar = tmp.getRoot().toPath().resolve(name);
+        try (OutputStream file = Files.newOutputStream(jar);
+             JarOutputStream out = new JarOutputStream(file);
+             Stream<Path> files = Files.walk(classDir)) {
+            for (Path f : (Iterable<Path>) files.filter(Files::isRegularFile).sorted()::iterator) {
+                out.putNextEntry(new ZipEntry(classDir.relativize(f).toString().replace('\\', '/')));
+                out.write(Files.readAllBytes(f));
+                out.closeEntry();
+            }
+        }
+        return jar;
+    }
+}
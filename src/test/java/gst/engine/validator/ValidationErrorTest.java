@@ -0,0 +1,40 @@
+package gst.engine.validator;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.Test;
+
+import com.github.javaparser.StaticJavaParser;
+import com.github.javaparser.ast.CompilationUnit;
+import com.github.javaparser.ast.expr.MethodCallExpr;
+
+public class ValidationErrorTest {
+
+    @Test
+    public void errorsAtTheSameRangeAreEqual() {
+        CompilationUnit before = StaticJavaParser.parse("class A { void f() { g(); } }");
+        CompilationUnit after = StaticJavaParser.parse("class A { void f() { g(); } }");
+        ValidationError a = new ValidationError("A.java", before.findFirst(MethodCallExpr.class).get(), "bad");
+        ValidationError b = new ValidationError("A.java", after.findFirst(MethodCallExpr.class).get(), "bad");
+        assertEquals(a, b);
+        assertEquals(a.hashCode(), b.hashCode());
+    }
+
+    @Test
+    public void errorsOnDistinctNodesWithoutRangeStayDistinct() {
+        MethodCallExpr first = new MethodCallExpr("g");
+        MethodCallExpr second = new MethodCallExpr("g");
+        ValidationError a = new ValidationError("A.java", first, "bad");
+        ValidationError b = new ValidationError("A.java", second, "bad");
+        assertNotEquals(a, b);
+        assertEquals(a, new ValidationError("A.java", first, "bad"));
+
+        Set<ValidationError> known = new LinkedHashSet<>(List.of(a, b));
+        assertEquals(2, known.size());
+    }
+}
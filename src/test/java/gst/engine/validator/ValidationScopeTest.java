@@ -0,0 +1,121 @@
+package gst.engine.validator;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.github.javaparser.StaticJavaParser;
+import com.github.javaparser.ast.CompilationUnit;
+import com.github.javaparser.ast.Node;
+import com.github.javaparser.ast.body.ConstructorDeclaration;
+import com.github.javaparser.ast.body.FieldDeclaration;
+import com.github.javaparser.ast.body.InitializerDeclaration;
+import com.github.javaparser.ast.body.MethodDeclaration;
+import com.github.javaparser.ast.body.Parameter;
+import com.github.javaparser.ast.expr.VariableDeclarationExpr;
+
+/**
+ * Which edits stay local to their method and which widen the scope to the file.
+ */
+public class ValidationScopeTest {
+    private static final String SOURCE = String.join("\n",
+            "import java.util.List;",
+            "class A {",
+            "    private List<String> items;",
+            "    static { int n = 0; }",
+            "    A(List<String> items) { this.items = items; }",
+            "    List<String> get(int i) { List<String> copy = items; return copy; }",
+            "    void put(List<String> l) { items = l; }",
+            "}",
+            "class B extends A {",
+            "    B() { super(null); }",
+            "}",
+            "");
+
+    private CompilationUnit cu;
+    private ValidationScope scope;
+
+    @Before
+    public void setUp() {
+        cu = StaticJavaParser.parse(SOURCE);
+        scope = ValidationScope.empty(cu);
+    }
+
+    @Test
+    public void bodyEditStaysInItsMethod() {
+        scope.addChange(method("get").findFirst(VariableDeclarationExpr.class).get());
+        assertFalse(scope.isWholeFile());
+        assertEquals(List.of(method("get")), scope.roots());
+    }
+
+    @Test
+    public void replacedBodyStaysInItsMethod() {
+        scope.addChange(method("put").getBody().get());
+        assertFalse(scope.isWholeFile());
+    }
+
+    @Test
+    public void initializerEditStaysInTheInitializer() {
+        InitializerDeclaration init = cu.findFirst(InitializerDeclaration.class).get();
+        scope.addChange(init.findFirst(VariableDeclarationExpr.class).get());
+        assertEquals(List.of(init), scope.roots());
+    }
+
+    @Test
+    public void parameterWidensToFile() {
+        scope.addChange(method("put").getParameter(0));
+        assertTrue(scope.isWholeFile());
+        assertSame(cu, scope.roots().get(0));
+    }
+
+    @Test
+    public void constructorParameterWidensToFile() {
+        Parameter p = cu.findFirst(ConstructorDeclaration.class).get().getParameter(0);
+        scope.addChange(p.getType());
+        assertTrue(scope.isWholeFile());
+    }
+
+    @Test
+    public void returnTypeWidensToFile() {
+        scope.addChange(method("get").getType());
+        assertTrue(scope.isWholeFile());
+    }
+
+    @Test
+    public void removedMethodWidensToFile() {
+        scope.addChange(method("put"));
+        assertTrue(scope.isWholeFile());
+    }
+
+    @Test
+    public void fieldTypeWidensToFile() {
+        FieldDeclaration field = cu.findFirst(FieldDeclaration.class).get();
+        scope.addChange(field.getVariable(0).getType());
+        assertTrue(scope.isWholeFile());
+    }
+
+    @Test
+    public void supertypeWidensToFile() {
+        Node extended = cu.getClassByName("B").get().getExtendedTypes(0);
+        scope.addChange(extended);
+        assertTrue(scope.isWholeFile());
+    }
+
+    @Test
+    public void abstractMethodWidensToFile() {
+        CompilationUnit unit = StaticJavaParser.parse("interface I { void f(int x); }");
+        ValidationScope s = ValidationScope.empty(unit);
+        s.addChange(unit.findFirst(Parameter.class).get());
+        assertTrue(s.isWholeFile());
+    }
+
+    private MethodDeclaration method(String name) {
+        return cu.getClassByName("A").get().getMethodsByName(name).get(0);
+    }
+}